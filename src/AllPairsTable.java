@@ -0,0 +1,87 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Shortest paths between every pair of nodes, computed once so that a query is a table
+// lookup. Row s of the tables describes the shortest-path tree grown by Dijkstra's
+// algorithm from node s: the distance to every node as a float, and the node before it
+// on its path from s. A path is unrolled backward from its end city along one row, so
+// it always follows a single tree even when several shortest paths tie.
+//
+// Both tables hold nodeCount^2 entries, so this is meant for regional networks of at
+// most a few thousand cities; node ids that small fit the predecessors in shorts.
+public class AllPairsTable {
+    public static final int MAX_NODES = 4096; // 96 MB of tables
+
+    private final CompactGraph graph;
+    private final int nodeCount;
+    private final float[] distances; // distances[s * nodeCount + t], infinity if t is unreachable
+    private final short[] predecessors; // Node before t on the path from s, -1 for s itself and unreachable nodes
+
+    // Runs one single-source search per node, spread over the common fork-join pool.
+    public AllPairsTable(CompactGraph graph) {
+        if (graph.nodeCount() > MAX_NODES) {
+            throw new IllegalArgumentException("An all-pairs table is limited to " + MAX_NODES + " nodes, not " + graph.nodeCount());
+        }
+        this.graph = graph;
+        this.nodeCount = graph.nodeCount();
+        this.distances = new float[nodeCount * nodeCount];
+        this.predecessors = new short[nodeCount * nodeCount];
+        IntStream.range(0, nodeCount).parallel().forEach(this::fillRow);
+    }
+
+    // Dijkstra's algorithm from source, written into its row of the tables
+    private void fillRow(int source) {
+        int row = source * nodeCount;
+        Arrays.fill(distances, row, row + nodeCount, Float.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, row, row + nodeCount, (short) -1);
+
+        SearchContext context = SearchContext.acquire(nodeCount);
+        IndexedMinHeap priorityQueue = context.heap;
+        priorityQueue.push(source, 0);
+        context.visit(source, -1, 0);
+
+        while (!priorityQueue.isEmpty()) {
+            int currentCity = priorityQueue.pop();
+            distances[row + currentCity] = (float) context.distance[currentCity];
+            predecessors[row + currentCity] = (short) context.parent[currentCity];
+
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                double cost = context.distance[currentCity] + graph.weights[e];
+                if (!context.isVisited(neighbor) || cost < context.distance[neighbor]) {
+                    context.visit(neighbor, currentCity, cost);
+                    priorityQueue.pushOrDecrease(neighbor, cost);
+                }
+            }
+        }
+    }
+
+    // Shortest distance from start to end, rounded to a float, or infinity if there is no path.
+    public float distance(int start, int end) {
+        return distances[start * nodeCount + end];
+    }
+
+    // Answers a query for algorithm from startCity to endCity, whose ids are start and end,
+    // from the tables, for a search that began at startNanos. No node is expanded, and the
+    // cost is summed in double precision along the unrolled path.
+    SearchResult search(SearchAlgorithm algorithm, String startCity, String endCity, int start, int end, long startNanos) {
+        int row = start * nodeCount;
+        if (start != end && predecessors[row + end] < 0) {
+            return SearchResult.notFound(algorithm, startCity, endCity, graph, startNanos);
+        }
+
+        // Walk back from the end city once, filling the scratch path from its far end
+        int[] path = SearchContext.acquire(nodeCount).path;
+        int first = nodeCount;
+        double cost = 0;
+        path[--first] = end;
+        for (int node = end; node != start; ) {
+            int previous = predecessors[row + node];
+            cost += graph.edgeWeight(previous, node);
+            path[--first] = previous;
+            node = previous;
+        }
+        return SearchResult.record(algorithm, startCity, endCity,
+                new SearchResult(graph, Arrays.copyOfRange(path, first, nodeCount), cost, 0, System.nanoTime() - startNanos));
+    }
+}
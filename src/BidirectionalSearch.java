@@ -0,0 +1,155 @@
+// Searches that grow one frontier from the start city and one from the end city and
+// stop when they meet. Both graphs are undirected, so the backward search walks the
+// same adjacency as the forward one.
+//
+// Each search writes the path into context.path and returns its length, or 0 if the
+// cities are not connected; the path distance is returned through pathDistance[0].
+// Expansions and relaxed edges on both sides are counted in forward, the pushes and
+// pops of each side in its own context.
+public class BidirectionalSearch {
+    // Lower bound on the distance from a node to a fixed city
+    public interface Heuristic {
+        double estimate(int node);
+    }
+
+    private BidirectionalSearch() {
+    }
+
+    // Bidirectional breadth-first search for a path with the fewest edges. Each step
+    // expands one whole level of the smaller frontier, and the best meeting edge seen in
+    // that level gives the shortest path.
+    public static int breadthFirstSearch(CompactGraph graph, int start, int end, SearchContext forward, double[] pathDistance) {
+        if (start == end) {
+            forward.path[0] = start;
+            pathDistance[0] = 0;
+            return 1;
+        }
+        SearchContext backward = forward.reverse(graph.nodeCount());
+        int[] forwardQueue = forward.nodes;
+        int[] backwardQueue = backward.nodes;
+        int forwardHead = 0;
+        int forwardTail = 0;
+        int backwardHead = 0;
+        int backwardTail = 0;
+
+        // distance holds the number of edges from the side's own root
+        forwardQueue[forwardTail++] = start;
+        forward.countPush(1);
+        forward.visit(start, -1, 0);
+        backwardQueue[backwardTail++] = end;
+        backward.countPush(1);
+        backward.visit(end, -1, 0);
+
+        while (forwardHead < forwardTail && backwardHead < backwardTail) {
+            boolean expandForward = forwardTail - forwardHead <= backwardTail - backwardHead;
+            SearchContext side = expandForward ? forward : backward;
+            SearchContext other = expandForward ? backward : forward;
+            int[] queue = expandForward ? forwardQueue : backwardQueue;
+            int head = expandForward ? forwardHead : backwardHead;
+            int tail = expandForward ? forwardTail : backwardTail;
+
+            int levelEnd = tail;
+            double best = Double.POSITIVE_INFINITY;
+            int meetSide = -1;
+            int meetOther = -1;
+            for (; head < levelEnd; head++) {
+                int current = queue[head];
+                side.countPop();
+                forward.expand(graph.offsets, current);
+                for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                    int neighbor = graph.targets[e];
+                    if (other.isVisited(neighbor)) {
+                        double hops = side.distance[current] + 1 + other.distance[neighbor];
+                        if (hops < best) {
+                            best = hops;
+                            meetSide = current;
+                            meetOther = neighbor;
+                        }
+                    }
+                    if (!side.isVisited(neighbor)) {
+                        queue[tail++] = neighbor;
+                        side.countPush(tail - head - 1);
+                        side.visit(neighbor, current, side.distance[current] + 1);
+                    }
+                }
+            }
+
+            if (expandForward) {
+                forwardHead = head;
+                forwardTail = tail;
+            } else {
+                backwardHead = head;
+                backwardTail = tail;
+            }
+            if (meetSide >= 0) {
+                int pathLength = joinPaths(forward, backward, expandForward ? meetSide : meetOther, expandForward ? meetOther : meetSide);
+                pathDistance[0] = graph.pathWeight(forward.path, pathLength);
+                return pathLength;
+            }
+        }
+        return 0;
+    }
+
+    // Bidirectional A* for the cheapest path. Both directions use the average potential
+    // p(v) = (toEnd(v) - toStart(v)) / 2, keyed g(v) + p(v) forward and g(v) - p(v)
+    // backward, which keeps the reduced edge costs consistent in both directions. The
+    // search can then stop as soon as the two smallest keys add up to the cost of the
+    // best path found.
+    public static int aStarSearch(CompactGraph graph, int start, int end, Heuristic toEnd, Heuristic toStart,
+                                  SearchContext forward, double[] pathDistance) {
+        SearchContext backward = forward.reverse(graph.nodeCount());
+        IndexedMinHeap forwardQueue = forward.heap;
+        IndexedMinHeap backwardQueue = backward.heap;
+
+        forward.visit(start, -1, 0);
+        forwardQueue.push(start, potential(toEnd, toStart, start));
+        backward.visit(end, -1, 0);
+        backwardQueue.push(end, -potential(toEnd, toStart, end));
+
+        double best = start == end ? 0 : Double.POSITIVE_INFINITY;
+        int meet = start == end ? start : -1;
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()
+                && forwardQueue.minKey() + backwardQueue.minKey() < best) {
+            boolean expandForward = forwardQueue.size() <= backwardQueue.size();
+            SearchContext side = expandForward ? forward : backward;
+            SearchContext other = expandForward ? backward : forward;
+            IndexedMinHeap queue = side.heap;
+            double sign = expandForward ? 1 : -1;
+
+            int current = queue.pop();
+            forward.expand(graph.offsets, current);
+            for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                int neighbor = graph.targets[e];
+                double cost = side.distance[current] + graph.weights[e];
+                if (!side.isVisited(neighbor) || cost < side.distance[neighbor]) {
+                    side.visit(neighbor, current, cost);
+                    queue.pushOrDecrease(neighbor, cost + sign * potential(toEnd, toStart, neighbor));
+                }
+                if (other.isVisited(neighbor) && side.distance[neighbor] + other.distance[neighbor] < best) {
+                    best = side.distance[neighbor] + other.distance[neighbor];
+                    meet = neighbor;
+                }
+            }
+        }
+
+        if (meet < 0) {
+            return 0;
+        }
+        pathDistance[0] = best;
+        return joinPaths(forward, backward, meet, backward.parent[meet]);
+    }
+
+    private static double potential(Heuristic toEnd, Heuristic toStart, int node) {
+        return (toEnd.estimate(node) - toStart.estimate(node)) / 2;
+    }
+
+    // Writes the forward tree path to forwardNode followed by the backward tree path
+    // from backwardNode to the end city into forward.path, and returns its length.
+    private static int joinPaths(SearchContext forward, SearchContext backward, int forwardNode, int backwardNode) {
+        int pathLength = forward.buildPath(forwardNode);
+        for (int node = backwardNode; node != -1; node = backward.parent[node]) {
+            forward.path[pathLength++] = node;
+        }
+        return pathLength;
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+
+// Dial's bucket queue over int node ids with whole-number keys, for Dijkstra's
+// algorithm on graphs whose edge weights are small integers. While the smallest queued
+// key is d, every other key lies in d .. d + maxWeight, so maxWeight + 1 circular
+// buckets hold them all, one distinct key per bucket, with key k in bucket
+// k mod (maxWeight + 1). Pushes and decreases are constant-time list operations and a
+// pop scans at most maxWeight + 1 buckets. Popped keys must never decrease, which
+// Dijkstra's algorithm guarantees.
+public class BucketQueue {
+    public static final int MAX_BUCKETS = 1 << 20;
+
+    private int[] bucketHead = new int[0]; // First node of each bucket, or -1
+    private int[] next = new int[0];       // Doubly linked bucket lists, ending in -1
+    private int[] previous = new int[0];
+    private int[] bucket = new int[0];     // Bucket of each node, or -1
+    private long[] keys = new long[0];
+    private int bucketCount;
+    private long floor; // No queued key is smaller: the last key popped, or the smallest pushed before that
+    private int current; // Bucket of floor
+    private int size;
+
+    // Pushes, pops and most nodes held at once since resetCounters(), counted while
+    // SearchMetrics.ENABLED
+    long pushes;
+    long pops;
+    int peakSize;
+
+    // Empties the queue and makes room for node ids below nodeCount and edge weights up
+    // to maxWeight.
+    public void clear(int nodeCount, long maxWeight) {
+        if (maxWeight < 0 || maxWeight >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("Edge weights must be in 0.." + (MAX_BUCKETS - 1) + ": " + maxWeight);
+        }
+        if (bucket.length < nodeCount) {
+            next = new int[nodeCount];
+            previous = new int[nodeCount];
+            bucket = new int[nodeCount];
+            keys = new long[nodeCount];
+            Arrays.fill(bucket, -1);
+        } else {
+            for (int b = 0; b < bucketCount && size > 0; b++) {
+                for (int node = bucketHead[b]; node >= 0; node = next[node]) {
+                    bucket[node] = -1;
+                    size--;
+                }
+            }
+        }
+        bucketCount = (int) maxWeight + 1;
+        if (bucketHead.length < bucketCount) {
+            bucketHead = new int[bucketCount];
+        }
+        Arrays.fill(bucketHead, 0, bucketCount, -1);
+        floor = Long.MAX_VALUE;
+        current = 0;
+        size = 0;
+    }
+
+    public void resetCounters() {
+        pushes = 0;
+        pops = 0;
+        peakSize = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return bucket[node] >= 0;
+    }
+
+    public long key(int node) {
+        return keys[node];
+    }
+
+    public void push(int node, long key) {
+        if (key < floor) {
+            floor = key;
+            current = (int) (key % bucketCount);
+        }
+        size++;
+        link(node, key);
+        if (SearchMetrics.ENABLED) {
+            pushes++;
+            if (size > peakSize) {
+                peakSize = size;
+            }
+        }
+    }
+
+    // Lowers the key of a node that is already queued.
+    public void decreaseKey(int node, long key) {
+        if (key < floor) {
+            floor = key;
+            current = (int) (key % bucketCount);
+        }
+        unlink(node);
+        link(node, key);
+    }
+
+    // Inserts the node, or lowers its key if it is queued with a larger one.
+    // Returns false if the node was already queued with a key no larger than key.
+    public boolean pushOrDecrease(int node, long key) {
+        if (bucket[node] < 0) {
+            push(node, key);
+            return true;
+        }
+        if (key < keys[node]) {
+            decreaseKey(node, key);
+            return true;
+        }
+        return false;
+    }
+
+    // Removes and returns a node with the smallest key.
+    public int pop() {
+        while (bucketHead[current] < 0) {
+            current = current + 1 == bucketCount ? 0 : current + 1;
+        }
+        int min = bucketHead[current];
+        floor = keys[min];
+        unlink(min);
+        size--;
+        if (SearchMetrics.ENABLED) {
+            pops++;
+        }
+        return min;
+    }
+
+    private void link(int node, long key) {
+        int b = (int) (key % bucketCount);
+        keys[node] = key;
+        bucket[node] = b;
+        previous[node] = -1;
+        next[node] = bucketHead[b];
+        if (bucketHead[b] >= 0) {
+            previous[bucketHead[b]] = node;
+        }
+        bucketHead[b] = node;
+    }
+
+    private void unlink(int node) {
+        if (previous[node] >= 0) {
+            next[previous[node]] = next[node];
+        } else {
+            bucketHead[bucket[node]] = next[node];
+        }
+        if (next[node] >= 0) {
+            previous[next[node]] = previous[node];
+        }
+        bucket[node] = -1;
+    }
+}
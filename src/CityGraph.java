@@ -1,394 +1,383 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.*;
+import java.util.List;
+
+// Road graph read from an edge list. A CityGraph is never modified once built: read,
+// fromSnapshot, withAllPairs and withUpdate each return a new instance, so one can be
+// shared by any number of searching threads.
+public class CityGraph implements RouteGraph {
+    private final CompactGraph graph;
+    private final ComponentIndex components; // Lets searches reject cities with no path between them at once
+    private final AllPairsTable allPairs; // Shortest paths between all cities, if made by withAllPairs
+    private final LandmarkIndex landmarks; // Road-count lower bounds for the A* heuristic
+    private final long version; // 0 for a graph read from a file, one more for each withUpdate after that
+
+    // Graph over a freshly read adjacency, with its components and landmarks
+    private CityGraph(CompactGraph graph) {
+        this.graph = graph;
+        this.components = new ComponentIndex(graph);
+        this.landmarks = new LandmarkIndex(graph, components, LandmarkIndex.DEFAULT_LANDMARKS);
+        this.allPairs = null;
+        this.version = 0;
+    }
 
-public class CityGraph {
-    private Map<String, List<String>> adjacencyList;
+    // Graph produced by withUpdate or withAllPairs
+    private CityGraph(CompactGraph graph, ComponentIndex components, LandmarkIndex landmarks, AllPairsTable allPairs, long version) {
+        this.graph = graph;
+        this.components = components;
+        this.landmarks = landmarks;
+        this.allPairs = allPairs;
+        this.version = version;
+    }
 
-    public CityGraph() {
-        adjacencyList = new HashMap<>();
+    // Returns a new graph with the update applied, leaving this one unchanged for the
+    // searches running on it. Roads added without a length count 1. The components are
+    // recomputed and the landmarks carried over, as LandmarkIndex describes; an all-pairs
+    // table is not carried over.
+    @Override
+    public CityGraph withUpdate(GraphUpdate update) {
+        CompactGraph updated = update.applyTo(graph, (city1, city2) -> 1);
+        ComponentIndex updatedComponents = new ComponentIndex(updated);
+        return new CityGraph(updated, updatedComponents, landmarks.forUpdate(update, graph, updated, updatedComponents), null, version + 1);
     }
 
     // Function to read city information from the text file and build the adjacency list.
-    public void readCityInformation(String filename) {
+    // Each line names two cities joined by a road, optionally followed by the road's
+    // length; roads without a length count 1.
+    public static CityGraph read(String filename) {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
         try {
-            BufferedReader br = new BufferedReader(new FileReader(filename));
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] cities = line.split(" ");
-                String city1 = cities[0];
-                String city2 = cities[1];
-
+            GraphFileParser parser = new GraphFileParser(builder);
+            parser.parseEdges(filename, (city1, city2, weight) -> {
                 // Add bidirectional edges to the adjacency list
-                addEdge(city1, city2);
-                addEdge(city2, city1);
-            }
-            br.close();
+                builder.addEdge(city1, city2, weight);
+                builder.addEdge(city2, city1, weight);
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return new CityGraph(builder.build());
     }
 
-    // Function to add an edge to the adjacency list.
-    private void addEdge(String city1, String city2) {
-        if (!adjacencyList.containsKey(city1)) {
-            adjacencyList.put(city1, new ArrayList<>());
-        }
-        adjacencyList.get(city1).add(city2);
+    // Loads a graph written by writeSnapshot instead of parsing the text file again.
+    public static CityGraph fromSnapshot(String filename) throws IOException {
+        return new CityGraph(GraphSnapshot.read(filename).graph);
     }
 
-    // Function to perform depth-first search (DFS).
-    public void depthFirstSearch(String startCity, String endCity) {
-        long startTime = System.currentTimeMillis();
-        Set<String> visited = new HashSet<>();
-        List<String> path = new ArrayList<>();
-        path.add(startCity);
-        double pathDistance = 0;
-
-        boolean foundPath = dfsHelper(startCity, endCity, visited, path,pathDistance);
-        long endTime = System.currentTimeMillis();
-        long executionTime = endTime - startTime;
-        System.out.println("Depth-First Search Execution Time: " + executionTime + " milliseconds");
-
-        if (!foundPath) {
-            System.out.println("No path found from " + startCity + " to " + endCity);
-        }
+    // Returns this graph with the shortest path between every pair of cities computed up
+    // front, so that A* and breadth-first queries become table lookups. Breadth-first
+    // search only uses the table while all roads have the same length, so that the
+    // shortest path is also the one with the fewest roads. The routes are those of this
+    // graph, so the version stays the same; withUpdate does not carry the table over.
+    public CityGraph withAllPairs() {
+        return new CityGraph(graph, components, landmarks, new AllPairsTable(graph), version);
     }
 
-    private boolean dfsHelper(String currentCity, String endCity, Set<String> visited, List<String> path, double pathDistance) {
+    // Saves the adjacency for fromSnapshot, marked with the sourceKey of the edge list it
+    // was read from; see GraphSnapshot.isCurrent.
+    public void writeSnapshot(String filename, long sourceKey) throws IOException {
+        GraphSnapshot.write(filename, graph, null, null, sourceKey);
+    }
 
-        if (currentCity.equals(endCity)) {
-            System.out.println("Path from " + path.get(0) + " to " + endCity + ": " + String.join(" -> ", path));
-            System.out.println("Path Distance: " + pathDistance);
-            return true;
-        }
+    @Override
+    public long version() {
+        return version;
+    }
 
-        visited.add(currentCity);
-
-        if (adjacencyList.containsKey(currentCity)) {
-            for (String neighbor : adjacencyList.get(currentCity)) {
-                if (!visited.contains(neighbor)) {
-                    path.add(neighbor);
-                    double edgeDistance = 1.00;
-                    pathDistance += edgeDistance;
-                    if (dfsHelper(neighbor, endCity, visited, path, pathDistance)) {
-                        return true; // Path found, stop searching
-                    }
-                    path.remove(path.size() - 1); // Backtrack
-                }
-            }
+    @Override
+    public SearchResult search(SearchAlgorithm algorithm, String startCity, String endCity) {
+        switch (algorithm) {
+            case BRUTE_FORCE:
+                return bruteForceSearch(startCity, endCity);
+            case BREADTH_FIRST:
+                return breadthFirstSearch(startCity, endCity);
+            case DEPTH_FIRST:
+                return depthFirstSearch(startCity, endCity);
+            case ITERATIVE_DEEPENING:
+                return iterativeDeepeningDFS(startCity, endCity);
+            case BEST_FIRST:
+                return bestFirstSearch(startCity, endCity);
+            case A_STAR:
+                return aStarSearch(startCity, endCity);
+            case BIDIRECTIONAL_BREADTH_FIRST:
+                return bidirectionalSearch(startCity, endCity);
+            case BIDIRECTIONAL_A_STAR:
+                return bidirectionalAStarSearch(startCity, endCity);
+            case DIJKSTRA:
+                return dijkstraSearch(startCity, endCity);
+            case DIJKSTRA_DIAL:
+                return dialSearch(startCity, endCity);
+            case DIJKSTRA_RADIX_HEAP:
+                return radixHeapSearch(startCity, endCity);
+            default:
+                throw new IllegalArgumentException(algorithm + " is not supported by CityGraph");
         }
-
-        visited.remove(currentCity);
-        return false; // No path found from this city
     }
 
-    public void breadthFirstSearch(String startCity, String endCity) {
-        Queue<String> queue = new LinkedList<>();
-        Map<String, String> parentMap = new HashMap<>();
-        Set<String> visited = new HashSet<>();
-        Map<String, Double> pathDistanceMap = new HashMap<>();
-        long startTime = System.currentTimeMillis();
-
-        queue.add(startCity);
-        visited.add(startCity);
-        pathDistanceMap.put(startCity, 0.0);
-
-        while (!queue.isEmpty()) {
-            String currentCity = queue.poll();
-            double currentPathDistance = pathDistanceMap.get(currentCity);
-
-            if (currentCity.equals(endCity)) {
-                // Reconstruct and print the path from endCity to startCity
-                List<String> path = new ArrayList<>();
-                path.add(endCity);
-                String parent = parentMap.get(endCity);
-                while (parent != null) {
-                    path.add(parent);
-                    parent = parentMap.get(parent);
-                }
-                Collections.reverse(path);
-                double pathDistance = pathDistanceMap.get(endCity);
-                System.out.println("Path from " + startCity + " to " + endCity + ": " + String.join(" -> ", path));
-                System.out.println("Path Distance: " + pathDistance);
-                long endTime = System.currentTimeMillis();
-                long executionTime = endTime - startTime;
-                System.out.println("Breadth-First Search Execution Time: " + executionTime + " milliseconds");
-                return;
-            }
+    // Shortest road lengths from every source city to every target city, or the fewest
+    // roads if the file gave no lengths
+    @Override
+    public DistanceMatrix distanceMatrix(List<String> sourceCities, List<String> targetCities, boolean withPaths) {
+        return ManyToManySearch.compute(graph, components, sourceCities, targetCities, withPaths);
+    }
 
-            if (adjacencyList.containsKey(currentCity)) {
-                for (String neighbor : adjacencyList.get(currentCity)) {
-                    if (!visited.contains(neighbor)) {
-                        queue.add(neighbor);
-                        visited.add(neighbor);
-                        parentMap.put(neighbor, currentCity);
-                        double edgeDistance = 1;
-                        double neighborPathDistance = currentPathDistance + edgeDistance; // Calculate path distance to neighbor
-                        pathDistanceMap.put(neighbor, neighborPathDistance);
-                    }
-                }
-            }
+    // Function to perform depth-first search (DFS).
+    public SearchResult depthFirstSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        int start = graph.id(startCity);
+        int end = graph.id(endCity);
+        if (start < 0 || end < 0 || !components.connected(start, end)) {
+            return SearchResult.notFound(SearchAlgorithm.DEPTH_FIRST, startCity, endCity, graph, startTime);
         }
 
-        System.out.println("No path found from " + startCity + " to " + endCity);
-    }
-
-    public void iterativeDeepeningDFS(String startCity, String endCity) {
-        int maxDepth = 0;
-        long startTime = System.currentTimeMillis();
-        while (true) {
-            Set<String> visited = new HashSet<>();
-            List<String> path = new ArrayList<>();
-            path.add(startCity);
-            double pathDistance = 0;
-
-            boolean found = iddfsHelper(startCity, endCity, visited, path, maxDepth, pathDistance);
-
-            if (found) {
-                System.out.println("Path from " + startCity + " to " + endCity + ": " + String.join(" -> ", path));
-                System.out.println("Path Distance: " + pathDistance);
-                long endTime = System.currentTimeMillis();
-                long executionTime = endTime - startTime;
-                System.out.println("Iterative Deepening DFS Execution Time: " + executionTime + " milliseconds");
-                return;
-            }
+        // Backtracking depth-first search: a city is unmarked again once every branch from it fails
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+        int pathLength = DepthFirstSearch.simplePath(graph, start, end, Integer.MAX_VALUE, context);
 
-            maxDepth++;
-            if (maxDepth >= adjacencyList.size()) {
-                System.out.println("No path found from " + startCity + " to " + endCity);
-            }
+        if (pathLength > 0) {
+            return SearchResult.found(SearchAlgorithm.DEPTH_FIRST, startCity, endCity, graph, context, pathLength, context.distance[end], startTime);
         }
+        return SearchResult.notFound(SearchAlgorithm.DEPTH_FIRST, startCity, endCity, graph, context, startTime);
     }
 
-    private boolean iddfsHelper(String currentCity, String endCity, Set<String> visited, List<String> path, int maxDepth, double pathDistance) {
-        if (currentCity.equals(endCity)) {
-            return true; // Path found
+    public SearchResult breadthFirstSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        int start = graph.id(startCity);
+        int end = graph.id(endCity);
+        if (start < 0 || end < 0 || !components.connected(start, end)) {
+            return SearchResult.notFound(SearchAlgorithm.BREADTH_FIRST, startCity, endCity, graph, startTime);
         }
-
-        if (path.size() > maxDepth) {
-            return false; // Reached the depth limit
+        if (allPairs != null && graph.minWeight() == graph.maxWeight()) {
+            return allPairs.search(SearchAlgorithm.BREADTH_FIRST, startCity, endCity, start, end, startTime);
         }
 
-        visited.add(currentCity);
-
-        if (adjacencyList.containsKey(currentCity)) {
-            for (String neighbor : adjacencyList.get(currentCity)) {
-                if (!visited.contains(neighbor)) {
-                    path.add(neighbor);
-                    double edgeDistance = 1;
-                    pathDistance += edgeDistance;
-                    if (iddfsHelper(neighbor, endCity, visited, path, maxDepth, pathDistance)) {
-                        return true; // Path found
-                    }
-                    path.remove(path.size() - 1); // Backtrack
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+        int[] queue = context.nodes;
+        int head = 0;
+        int tail = 0;
+
+        queue[tail++] = start;
+        context.countPush(tail - head);
+        context.visit(start, -1, 0);
+
+        while (head < tail) {
+            int currentCity = queue[head++];
+            context.countPop();
+
+            if (currentCity == end) {
+                return SearchResult.found(SearchAlgorithm.BREADTH_FIRST, startCity, endCity, graph, context, context.buildPath(end), context.distance[end], startTime);
+            }
+            context.expand(graph.offsets, currentCity);
+
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                if (!context.isVisited(neighbor)) {
+                    queue[tail++] = neighbor;
+                    context.countPush(tail - head);
+                    double edgeDistance = graph.weights[e];
+                    double neighborPathDistance = context.distance[currentCity] + edgeDistance; // Calculate path distance to neighbor
+                    context.visit(neighbor, currentCity, neighborPathDistance);
                 }
             }
         }
 
-        visited.remove(currentCity);
-        return false; // No path found
+        return SearchResult.notFound(SearchAlgorithm.BREADTH_FIRST, startCity, endCity, graph, context, startTime);
     }
 
-    // Function to perform Best-First Search (BFS) with a heuristic.
-    public void bestFirstSearch(String startCity, String endCity) {
-        long startTime = System.currentTimeMillis();
-        PriorityQueue<CityNode> priorityQueue = new PriorityQueue<>(new Comparator<CityNode>() {
-            @Override
-            public int compare(CityNode node1, CityNode node2) {
-                // Compare based on heuristic value (estimated distance to the endCity).
-                return Double.compare(node1.heuristic, node2.heuristic);
-            }
-        });
+    // Iterative deepening DFS for the path with the fewest roads. Ends once a depth bound
+    // covers the whole component of the start city, and reports the work of each iteration.
+    public IterativeDeepeningResult iterativeDeepeningDFS(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        int start = graph.id(startCity);
+        int end = graph.id(endCity);
+        if (start < 0 || end < 0 || !components.connected(start, end)) {
+            return IterativeDeepeningResult.notStarted(SearchAlgorithm.ITERATIVE_DEEPENING, startCity, endCity, graph, startTime);
+        }
+
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+        int pathLength = DepthFirstSearch.iterativeDeepening(graph, start, end, context);
+        return IterativeDeepeningResult.of(SearchAlgorithm.ITERATIVE_DEEPENING, startCity, endCity, graph, context, pathLength, pathLength > 0 ? context.distance[end] : 0, startTime);
+    }
 
-        Map<String, String> parentMap = new HashMap<>();
-        Map<String, Double> pathDistanceMap = new HashMap<>();
-        Set<String> visited = new HashSet<>();
+    // Function to perform Best-First Search (BFS) with a heuristic.
+    public SearchResult bestFirstSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        int start = graph.id(startCity);
+        int end = graph.id(endCity);
+        if (start < 0 || end < 0 || !components.connected(start, end)) {
+            return SearchResult.notFound(SearchAlgorithm.BEST_FIRST, startCity, endCity, graph, startTime);
+        }
 
+        // Cities are ordered by their heuristic value (estimated distance to the endCity).
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+        IndexedMinHeap priorityQueue = context.heap;
 
-        // Create a starting node with a heuristic value (distance estimate).
-        CityNode startNode = new CityNode(startCity, 0);
-        priorityQueue.add(startNode);
-        visited.add(startCity);
-        pathDistanceMap.put(startCity, 0.0);
+        // Queue the starting city with a heuristic value (distance estimate).
+        priorityQueue.push(start, computeHeuristic(start, end));
+        context.visit(start, -1, 0);
 
         while (!priorityQueue.isEmpty()) {
-            CityNode currentNode = priorityQueue.poll();
-            double currentPathDistance = pathDistanceMap.get(currentNode.city);
+            int currentCity = priorityQueue.pop();
 
             // Check if we have reached the destination city.
-            if (currentNode.city.equals(endCity)) {
-                // Reconstruct and print the path from endCity to startCity.
-                List<String> path = new ArrayList<>();
-                path.add(endCity);
-                String parent = parentMap.get(endCity);
-                while (parent != null) {
-                    path.add(parent);
-                    parent = parentMap.get(parent);
-                }
-                Collections.reverse(path);
-                double pathDistance = pathDistanceMap.get(endCity);
-                System.out.println("Path from " + startCity + " to " + endCity + ": " + String.join(" -> ", path));
-                System.out.println("Path Distance: " + pathDistance);
-                long endTime = System.currentTimeMillis();
-                long executionTime = endTime - startTime;
-                System.out.println("Best-First Search Execution Time: " + executionTime + " milliseconds");
+            if (currentCity == end) {
+                return SearchResult.found(SearchAlgorithm.BEST_FIRST, startCity, endCity, graph, context, context.buildPath(end), context.distance[end], startTime);
             }
+            context.expand(graph.offsets, currentCity);
 
             // Explore neighbors of the current city.
-            if (adjacencyList.containsKey(currentNode.city)) {
-                for (String neighbor : adjacencyList.get(currentNode.city)) {
-                    if (!visited.contains(neighbor)) {
-                        double heuristic = computeHeuristic(neighbor, endCity); // Heuristic value
-                        CityNode neighborNode = new CityNode(neighbor, heuristic);
-                        priorityQueue.add(neighborNode);
-                        visited.add(neighbor);
-                        parentMap.put(neighbor, currentNode.city); // Store parent for path reconstruction.
-                        double edgeDistance = 1;
-                        double neighborPathDistance = currentPathDistance + edgeDistance;
-                        pathDistanceMap.put(neighbor, neighborPathDistance);
-
-                    }
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                if (!context.isVisited(neighbor)) {
+                    double heuristic = computeHeuristic(neighbor, end); // Heuristic value
+                    priorityQueue.push(neighbor, heuristic);
+                    double edgeDistance = graph.weights[e];
+                    double neighborPathDistance = context.distance[currentCity] + edgeDistance;
+                    context.visit(neighbor, currentCity, neighborPathDistance); // Store parent for path reconstruction.
+
                 }
             }
         }
 
-        System.out.println("No path found from " + startCity + " to " + endCity);
+        return SearchResult.notFound(SearchAlgorithm.BEST_FIRST, startCity, endCity, graph, context, startTime);
     }
 
-    // Function to compute the heuristic value (straight-line distance) between two cities.
-    private double computeHeuristic(String city1, String city2) {
-
-        return 0;
+    // Function to compute the heuristic value between two cities. There are no coordinates,
+    // so it is the landmark lower bound on the number of roads between them.
+    private double computeHeuristic(int city1, int city2) {
+        return landmarks.estimate(city1, city2);
     }
-    private class CityNode {
-        String city;
-        double heuristic;
 
-        public CityNode(String city, double heuristic) {
-            this.city = city;
-            this.heuristic = heuristic;
+    public SearchResult aStarSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        int start = graph.id(startCity);
+        int end = graph.id(endCity);
+        if (start < 0 || end < 0 || !components.connected(start, end)) {
+            return SearchResult.notFound(SearchAlgorithm.A_STAR, startCity, endCity, graph, startTime);
+        }
+        if (allPairs != null) {
+            return allPairs.search(SearchAlgorithm.A_STAR, startCity, endCity, start, end, startTime);
         }
-    }
-
-
-    public void aStarSearch(String startCity, String endCity) {
-        long startTime = System.currentTimeMillis();
-        PriorityQueue<CityCost> priorityQueue = new PriorityQueue<>(new Comparator<CityCost>() {
-            @Override
-            public int compare(CityCost city1, CityCost city2) {
-                // Compare based on the sum of the path cost and heuristic value.
-                double cost1 = city1.pathCost + computeHeuristic(city1.name, endCity);
-                double cost2 = city2.pathCost + computeHeuristic(city2.name, endCity);
-                return Double.compare(cost1, cost2);
-            }
-        });
 
-        Map<String, Double> costSoFar = new HashMap<>();
-        Map<String, String> parentMap = new HashMap<>();
-        Set<String> visited = new HashSet<>();
+        // Cities are keyed by the sum of the path cost and heuristic value, computed once
+        // when the city is queued or its path cost improves.
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+        IndexedMinHeap priorityQueue = context.heap;
 
-        CityCost startNode = new CityCost(startCity, 0);
-        priorityQueue.add(startNode);
-        costSoFar.put(startCity, 0.0);
-        visited.add(startCity);
+        priorityQueue.push(start, computeHeuristic(start, end));
+        context.visit(start, -1, 0);
 
         while (!priorityQueue.isEmpty()) {
-            CityCost currentCity = priorityQueue.poll();
+            int currentCity = priorityQueue.pop();
 
             // Check if we have reached the destination city.
-            if (currentCity.name.equals(endCity)) {
-                // Reconstruct and print the path from endCity to startCity.
-                List<String> path = new ArrayList<>();
-                path.add(endCity);
-                String parent = parentMap.get(endCity);
-                while (parent != null) {
-                    path.add(parent);
-                    parent = parentMap.get(parent);
-                }
-                double pathDistance = costSoFar.get(endCity); // Get path distance
-                long endTime = System.currentTimeMillis(); // Record end time
-                long executionTime = endTime - startTime;
-                Collections.reverse(path);
-                System.out.println("Path from " + startCity + " to " + endCity + ": " + String.join(" -> ", path));
-                System.out.println("Path Distance: " + pathDistance);
-                System.out.println("Execution Time: " + executionTime + " milliseconds");
-                return;
+            if (currentCity == end) {
+                return SearchResult.found(SearchAlgorithm.A_STAR, startCity, endCity, graph, context, context.buildPath(end), context.distance[end], startTime);
             }
+            context.expand(graph.offsets, currentCity);
 
             // Explore neighbors of the current city.
-            if (adjacencyList.containsKey(currentCity.name)) {
-                for (String neighbor : adjacencyList.get(currentCity.name)) {
-                    if (!visited.contains(neighbor)) {
-                        double cost = costSoFar.get(currentCity.name) + 1; // Assuming equal edge costs
-                        CityCost neighborCity = new CityCost(neighbor, cost);
-                        priorityQueue.add(neighborCity);
-                        costSoFar.put(neighbor, cost);
-                        visited.add(neighbor);
-                        parentMap.put(neighbor, currentCity.name); // Store parent for path reconstruction.
-                    }
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                double cost = context.distance[currentCity] + graph.weights[e];
+                if (!context.isVisited(neighbor) || cost < context.distance[neighbor]) {
+                    context.visit(neighbor, currentCity, cost); // Store parent for path reconstruction.
+                    priorityQueue.pushOrDecrease(neighbor, cost + computeHeuristic(neighbor, end));
                 }
             }
         }
 
-        System.out.println("No path found from " + startCity + " to " + endCity);
+        return SearchResult.notFound(SearchAlgorithm.A_STAR, startCity, endCity, graph, context, startTime);
     }
 
-    private class CityCost {
-        String name;
-        double pathCost;
-
-        public CityCost(String name, double pathCost) {
-            this.name = name;
-            this.pathCost = pathCost;
+    // Breadth-first search that grows frontiers from both cities until they meet.
+    public SearchResult bidirectionalSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        int start = graph.id(startCity);
+        int end = graph.id(endCity);
+        if (start < 0 || end < 0 || !components.connected(start, end)) {
+            return SearchResult.notFound(SearchAlgorithm.BIDIRECTIONAL_BREADTH_FIRST, startCity, endCity, graph, startTime);
         }
-    }
 
-    // Function to perform brute-force search to find a path between two cities.
-    public void bruteForceSearch(String startCity, String endCity) {
-        List<String> path = new ArrayList<>();
-        path.add(startCity);
-        double pathDistance = 0.00;
-        long startTime = System.currentTimeMillis();
-
-        boolean foundPath = bruteForceHelper(startCity, endCity, path, pathDistance);
-
-        if (foundPath) {
-            System.out.println("Path from " + startCity + " to " + endCity + ": " + String.join(" -> ", path));
-            System.out.println("Path Distance: " + pathDistance);
-            long endTime = System.currentTimeMillis();
-            long executionTime = endTime - startTime;
-            System.out.println("Brute-Force Search Execution Time: " + executionTime + " milliseconds");
-        } else {
-            System.out.println("No path found from " + startCity + " to " + endCity);
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+        double[] pathDistance = new double[1];
+        int pathLength = BidirectionalSearch.breadthFirstSearch(graph, start, end, context, pathDistance);
+
+        if (pathLength > 0) {
+            return SearchResult.found(SearchAlgorithm.BIDIRECTIONAL_BREADTH_FIRST, startCity, endCity, graph, context, pathLength, pathDistance[0], startTime);
         }
+        return SearchResult.notFound(SearchAlgorithm.BIDIRECTIONAL_BREADTH_FIRST, startCity, endCity, graph, context, startTime);
     }
 
-    private boolean bruteForceHelper(String currentCity, String endCity, List<String> path, double pathDistance) {
-        if (currentCity.equals(endCity)) {
-            return true; // Path found
+    // A* search that runs from both cities at once and stops when the best path through
+    // the meeting point can no longer be improved.
+    public SearchResult bidirectionalAStarSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        int start = graph.id(startCity);
+        int end = graph.id(endCity);
+        if (start < 0 || end < 0 || !components.connected(start, end)) {
+            return SearchResult.notFound(SearchAlgorithm.BIDIRECTIONAL_A_STAR, startCity, endCity, graph, startTime);
         }
 
-        if (adjacencyList.containsKey(currentCity)) {
-            for (String neighbor : adjacencyList.get(currentCity)) {
-                if (!path.contains(neighbor)) {
-                    path.add(neighbor);
-                    double edgeDistance = 1;
-                    pathDistance += edgeDistance;
-                    if (bruteForceHelper(neighbor, endCity, path, pathDistance)) {
-                        return true; // Path found
-                    }
-                    path.remove(path.size() - 1); // Backtrack
-                    pathDistance -= edgeDistance;
-                }
-            }
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+        double[] pathDistance = new double[1];
+        int pathLength = BidirectionalSearch.aStarSearch(graph, start, end,
+                city -> computeHeuristic(city, end), city -> computeHeuristic(city, start), context, pathDistance);
+
+        if (pathLength > 0) {
+            return SearchResult.found(SearchAlgorithm.BIDIRECTIONAL_A_STAR, startCity, endCity, graph, context, pathLength, pathDistance[0], startTime);
         }
+        return SearchResult.notFound(SearchAlgorithm.BIDIRECTIONAL_A_STAR, startCity, endCity, graph, context, startTime);
+    }
+
+    // Dijkstra's algorithm for the path with the least total road length.
+    public SearchResult dijkstraSearch(String startCity, String endCity) {
+        return dijkstraSearch(startCity, endCity, SearchAlgorithm.DIJKSTRA, DijkstraSearch::heapSearch);
+    }
+
+    // Dijkstra's algorithm over Dial's bucket queue. Throws IllegalStateException if a
+    // road length is not a whole number or too long for the buckets.
+    public SearchResult dialSearch(String startCity, String endCity) {
+        return dijkstraSearch(startCity, endCity, SearchAlgorithm.DIJKSTRA_DIAL, DijkstraSearch::dialSearch);
+    }
 
-        return false; // No path found from this city
+    // Dijkstra's algorithm over a radix heap. Throws IllegalStateException if a road
+    // length is not a whole number.
+    public SearchResult radixHeapSearch(String startCity, String endCity) {
+        return dijkstraSearch(startCity, endCity, SearchAlgorithm.DIJKSTRA_RADIX_HEAP, DijkstraSearch::radixHeapSearch);
     }
 
+    private SearchResult dijkstraSearch(String startCity, String endCity, SearchAlgorithm algorithm, DijkstraSearch.Engine engine) {
+        long startTime = System.nanoTime();
+        int start = graph.id(startCity);
+        int end = graph.id(endCity);
+        if (start < 0 || end < 0 || !components.connected(start, end)) {
+            return SearchResult.notFound(algorithm, startCity, endCity, graph, startTime);
+        }
+
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+        int pathLength = engine.search(graph, start, end, context);
+        if (pathLength > 0) {
+            return SearchResult.found(algorithm, startCity, endCity, graph, context, pathLength, context.distance[end], startTime);
+        }
+        return SearchResult.notFound(algorithm, startCity, endCity, graph, context, startTime);
+    }
 
+    // Function to perform brute-force search to find a path between two cities.
+    public SearchResult bruteForceSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        int start = graph.id(startCity);
+        int end = graph.id(endCity);
+        if (start < 0 || end < 0 || !components.connected(start, end)) {
+            return SearchResult.notFound(SearchAlgorithm.BRUTE_FORCE, startCity, endCity, graph, startTime);
+        }
 
+        // Tries every simple path from the start city in turn until one reaches the end city
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+        int pathLength = DepthFirstSearch.simplePath(graph, start, end, Integer.MAX_VALUE, context);
 
+        if (pathLength > 0) {
+            return SearchResult.found(SearchAlgorithm.BRUTE_FORCE, startCity, endCity, graph, context, pathLength, context.distance[end], startTime);
+        }
+        return SearchResult.notFound(SearchAlgorithm.BRUTE_FORCE, startCity, endCity, graph, context, startTime);
+    }
 }
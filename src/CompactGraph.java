@@ -0,0 +1,228 @@
+import java.util.*;
+
+// Immutable compressed-sparse-row graph. Nodes are int ids 0..nodeCount-1 and the
+// outgoing edges of node v are targets[offsets[v]] .. targets[offsets[v + 1] - 1],
+// with the matching weights at the same positions. City names are only looked up
+// at the API boundary; the searches work on the primitive arrays directly.
+public class CompactGraph {
+    final String[] names;
+    final int[] offsets;
+    final int[] targets;
+    final double[] weights;
+    private final Map<String, Integer> ids;
+    private final double minWeight;
+    private final double maxWeight;
+    private final boolean integerWeights;
+
+    CompactGraph(String[] names, int[] offsets, int[] targets, double[] weights) {
+        this(names, indexNames(names), offsets, targets, weights);
+    }
+
+    // Graph over the same cities as nodes, sharing its names and their index
+    CompactGraph(CompactGraph nodes, int[] offsets, int[] targets, double[] weights) {
+        this(nodes.names, nodes.ids, offsets, targets, weights);
+    }
+
+    private CompactGraph(String[] names, Map<String, Integer> ids, int[] offsets, int[] targets, double[] weights) {
+        this.names = names;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.ids = ids;
+
+        double min = targets.length > 0 ? Double.POSITIVE_INFINITY : 0;
+        double max = 0;
+        boolean integer = true;
+        for (double weight : weights) {
+            min = Math.min(min, weight);
+            max = Math.max(max, weight);
+            integer &= weight == Math.rint(weight);
+        }
+        this.minWeight = min;
+        this.maxWeight = max;
+        this.integerWeights = integer;
+    }
+
+    private static Map<String, Integer> indexNames(String[] names) {
+        Map<String, Integer> ids = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            ids.put(names[i], i);
+        }
+        return ids;
+    }
+
+    public int nodeCount() {
+        return names.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    // Lightest and heaviest edge weight, both 0 for a graph without edges. When they are
+    // equal, the path with the fewest edges is also the lightest.
+    public double minWeight() {
+        return minWeight;
+    }
+
+    public double maxWeight() {
+        return maxWeight;
+    }
+
+    // Whether every edge weight is a whole number, as the integer priority queues need.
+    public boolean hasIntegerWeights() {
+        return integerWeights;
+    }
+
+    // 64-bit hash of the adjacency and every edge weight, so a file derived from the graph
+    // can tell whether it was built for this one. Computed anew on each call.
+    public long fingerprint() {
+        long hash = names.length;
+        for (int offset : offsets) {
+            hash = mix(hash, offset);
+        }
+        for (int target : targets) {
+            hash = mix(hash, target);
+        }
+        for (double weight : weights) {
+            hash = mix(hash, Double.doubleToLongBits(weight));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        long mixed = (hash + value) * 0x9E3779B97F4A7C15L;
+        return mixed ^ (mixed >>> 32);
+    }
+
+    // Returns the id of the named city, or -1 if the city is not in the graph.
+    public int id(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    // Returns the weight of the lightest edge from source to target, or infinity if
+    // they are not adjacent.
+    public double edgeWeight(int source, int target) {
+        double weight = Double.POSITIVE_INFINITY;
+        for (int e = offsets[source]; e < offsets[source + 1]; e++) {
+            if (targets[e] == target && weights[e] < weight) {
+                weight = weights[e];
+            }
+        }
+        return weight;
+    }
+
+    // Returns the total weight of the path held in path[0 .. length - 1].
+    public double pathWeight(int[] path, int length) {
+        double weight = 0;
+        for (int i = 1; i < length; i++) {
+            weight += edgeWeight(path[i - 1], path[i]);
+        }
+        return weight;
+    }
+
+    // Converts a path of node ids into city names.
+    public List<String> names(int[] path, int length) {
+        List<String> result = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            result.add(names[path[i]]);
+        }
+        return result;
+    }
+
+    // Collects directed edges in insertion order and packs them into a CompactGraph.
+    // The neighbors of each node keep the order in which their edges were added. Parallel
+    // edges are merged into the first of them with the smallest of their weights, so
+    // every search, whichever edge it scans, sees the same length between two cities.
+    public static class Builder {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private int[] sources = new int[16];
+        private int[] edgeTargets = new int[16];
+        private double[] edgeWeights = new double[16];
+        private int edgeCount;
+
+        // Returns the id of the named city, adding it to the dictionary if needed.
+        public int addNode(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        public String name(int id) {
+            return names.get(id);
+        }
+
+        public void addEdge(int source, int target, double weight) {
+            if (edgeCount == sources.length) {
+                int capacity = edgeCount * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+            }
+            sources[edgeCount] = source;
+            edgeTargets[edgeCount] = target;
+            edgeWeights[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        public CompactGraph build() {
+            int nodeCount = names.size();
+            int[] offsets = new int[nodeCount + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                offsets[sources[e] + 1]++;
+            }
+            for (int v = 0; v < nodeCount; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+
+            // Stable counting sort of the edges by source node
+            int[] next = Arrays.copyOf(offsets, nodeCount);
+            int[] targets = new int[edgeCount];
+            double[] weights = new double[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                int slot = next[sources[e]]++;
+                targets[slot] = edgeTargets[e];
+                weights[slot] = edgeWeights[e];
+            }
+
+            // Merge parallel edges in place; slotOf[t] is the slot of the edge to t from
+            // the current node, valid while sourceOf[t] is that node
+            int[] slotOf = new int[nodeCount];
+            int[] sourceOf = new int[nodeCount];
+            Arrays.fill(sourceOf, -1);
+            int kept = 0;
+            for (int v = 0; v < nodeCount; v++) {
+                int first = offsets[v];
+                offsets[v] = kept;
+                for (int e = first; e < offsets[v + 1]; e++) {
+                    int target = targets[e];
+                    if (sourceOf[target] == v) {
+                        weights[slotOf[target]] = Math.min(weights[slotOf[target]], weights[e]);
+                    } else {
+                        sourceOf[target] = v;
+                        slotOf[target] = kept;
+                        targets[kept] = target;
+                        weights[kept] = weights[e];
+                        kept++;
+                    }
+                }
+            }
+            offsets[nodeCount] = kept;
+            if (kept < edgeCount) {
+                targets = Arrays.copyOf(targets, kept);
+                weights = Arrays.copyOf(weights, kept);
+            }
+            return new CompactGraph(names.toArray(new String[0]), offsets, targets, weights);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+// Labels every node of a CompactGraph with its connected component, so a search can
+// tell in constant time that two cities have no path between them instead of exploring
+// everything reachable from the start first. Components are found with union-find over
+// the edges, ignoring their direction: two nodes with different labels are unreachable
+// from each other whichever way the edges point.
+public class ComponentIndex {
+    private final int[] component; // Component label of each node, numbered from 0
+    private final int componentCount;
+
+    public ComponentIndex(CompactGraph graph) {
+        int nodeCount = graph.nodeCount();
+        int[] parent = new int[nodeCount];
+        int[] size = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+
+        for (int node = 0; node < nodeCount; node++) {
+            for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                int root1 = find(parent, node);
+                int root2 = find(parent, graph.targets[e]);
+                if (root1 == root2) {
+                    continue;
+                }
+                // Hang the smaller tree under the larger one to keep the trees shallow
+                if (size[root1] < size[root2]) {
+                    int swap = root1;
+                    root1 = root2;
+                    root2 = swap;
+                }
+                parent[root2] = root1;
+                size[root1] += size[root2];
+            }
+        }
+
+        // Number the roots in node order and give every node the label of its root
+        component = new int[nodeCount];
+        int count = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (parent[node] == node) {
+                component[node] = count++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            component[node] = component[find(parent, node)];
+        }
+        componentCount = count;
+    }
+
+    // Returns the root of node's tree, halving the path to it on the way.
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    // Whether a path may exist between the two nodes. False means there is none.
+    public boolean connected(int node1, int node2) {
+        return component[node1] == component[node2];
+    }
+
+    public int componentOf(int node) {
+        return component[node];
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+}
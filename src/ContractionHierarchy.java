@@ -0,0 +1,463 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+// Contraction hierarchy over an undirected CompactGraph, for point-to-point shortest
+// paths that only touch a small part of the graph. Preprocessing removes ("contracts")
+// the nodes one at a time, cheapest first, and adds a shortcut edge between two
+// neighbors of the removed node whenever the path through it is the only shortest one.
+// A node's rank is its position in that order. A query then runs Dijkstra's algorithm
+// from both cities at once, only ever moving to higher-ranked nodes, and unpacks the
+// shortcuts on the best path where the two searches meet.
+//
+// Every edge is kept once, at its lower-ranked end, together with the node it bypasses
+// (-1 for an edge of the original graph). Edge directions of the input are ignored.
+//
+// File layout (little-endian, sections aligned to 8 bytes):
+//   int magic, int version, int nodeCount, int graphEdgeCount, int edgeCount,
+//   long graph fingerprint (see CompactGraph.fingerprint)
+//   int[nodeCount] ranks, int[nodeCount + 1] offsets, int[edgeCount] targets, int[edgeCount] middles
+//   double[edgeCount] weights
+public class ContractionHierarchy {
+    private static final int MAGIC = 0x43474348; // "CGCH"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 28;
+    // Nodes a witness search may settle before giving up and keeping the shortcut. A
+    // missed witness only costs a redundant shortcut, never a wrong answer.
+    private static final int WITNESS_SETTLE_LIMIT = 128;
+
+    private final CompactGraph graph;
+    private final int[] rank;
+    private final int[] offsets; // Upward edges of node v are offsets[v] .. offsets[v + 1] - 1
+    private final int[] targets;
+    private final int[] middles;
+    private final double[] weights;
+
+    private ContractionHierarchy(CompactGraph graph, int[] rank, int[] offsets, int[] targets, int[] middles, double[] weights) {
+        this.graph = graph;
+        this.rank = rank;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.middles = middles;
+        this.weights = weights;
+    }
+
+    // Orders and contracts every node of graph.
+    public static ContractionHierarchy build(CompactGraph graph) {
+        return new Contraction(graph).run();
+    }
+
+    public int shortcutCount() {
+        int count = 0;
+        for (int middle : middles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Shortest path between start and end over the hierarchy. Writes the path, with every
+    // shortcut replaced by the original edges it stands for, into context.path and returns
+    // its length, or 0 if the cities are not connected; the path distance is returned
+    // through pathDistance[0]. Expansions on both sides are counted in context.expanded.
+    public int search(int start, int end, SearchContext context, double[] pathDistance) {
+        if (start == end) {
+            context.path[0] = start;
+            pathDistance[0] = 0;
+            return 1;
+        }
+        SearchContext forward = context;
+        SearchContext backward = context.reverse(graph.nodeCount());
+        forward.heap.push(start, 0);
+        forward.visit(start, -1, 0);
+        backward.heap.push(end, 0);
+        backward.visit(end, -1, 0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        while (true) {
+            double forwardMin = forward.heap.isEmpty() ? Double.POSITIVE_INFINITY : forward.heap.minKey();
+            double backwardMin = backward.heap.isEmpty() ? Double.POSITIVE_INFINITY : backward.heap.minKey();
+            if (Math.min(forwardMin, backwardMin) >= best) {
+                break; // Neither side can still reach a better meeting node
+            }
+            SearchContext side = forwardMin <= backwardMin ? forward : backward;
+            SearchContext other = side == forward ? backward : forward;
+            int current = side.heap.pop();
+            double distance = side.distance[current];
+            if (other.isVisited(current) && distance + other.distance[current] < best) {
+                best = distance + other.distance[current];
+                meet = current;
+            }
+            if (isStalled(side, current, distance)) {
+                continue;
+            }
+            forward.expand(offsets, current);
+
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int neighbor = targets[e];
+                double cost = distance + weights[e];
+                if (!side.isVisited(neighbor) || cost < side.distance[neighbor]) {
+                    side.visit(neighbor, current, cost);
+                    side.heap.pushOrDecrease(neighbor, cost);
+                }
+            }
+        }
+        if (meet < 0) {
+            return 0;
+        }
+
+        // Chain of hierarchy nodes from start up to the meeting node and down to end
+        int[] chain = forward.nodes;
+        int chainLength = 0;
+        for (int node = meet; node != -1; node = forward.parent[node]) {
+            chainLength++;
+        }
+        int i = chainLength;
+        for (int node = meet; node != -1; node = forward.parent[node]) {
+            chain[--i] = node;
+        }
+        for (int node = backward.parent[meet]; node != -1; node = backward.parent[node]) {
+            chain[chainLength++] = node;
+        }
+
+        int[] path = forward.path;
+        int pathLength = 1;
+        path[0] = start;
+        for (int c = 1; c < chainLength; c++) {
+            pathLength = unpack(chain[c - 1], chain[c], path, pathLength, forward.cursor);
+        }
+        pathDistance[0] = graph.pathWeight(path, pathLength);
+        return pathLength;
+    }
+
+    // A node is stalled when a higher-ranked node already reached by the same side offers
+    // a shorter way to it: its distance is not final, so it is not worth expanding.
+    private boolean isStalled(SearchContext side, int node, double distance) {
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+            int neighbor = targets[e];
+            if (side.isVisited(neighbor) && side.distance[neighbor] + weights[e] < distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Appends the original path from `from` to `to`, excluding `from`, to path[length ..]
+    // and returns the new length. Shortcuts are split at their middle node on an explicit
+    // stack; the middle of a shortcut ranks below both its ends, so the stack stays
+    // shorter than the node count.
+    private int unpack(int from, int to, int[] path, int length, int[] stack) {
+        int top = 0;
+        stack[top++] = to;
+        int current = from;
+        while (top > 0) {
+            int next = stack[top - 1];
+            int middle = middle(current, next);
+            if (middle < 0) {
+                path[length++] = next;
+                current = next;
+                top--;
+            } else {
+                stack[top++] = middle;
+            }
+        }
+        return length;
+    }
+
+    // Returns the node bypassed by the edge between two adjacent nodes, or -1 if the edge
+    // is an original one.
+    private int middle(int node1, int node2) {
+        int lower = rank[node1] < rank[node2] ? node1 : node2;
+        int higher = lower == node1 ? node2 : node1;
+        for (int e = offsets[lower]; e < offsets[lower + 1]; e++) {
+            if (targets[e] == higher) {
+                return middles[e];
+            }
+        }
+        throw new IllegalStateException("No hierarchy edge between " + graph.name(node1) + " and " + graph.name(node2));
+    }
+
+    public void write(String fileName) throws IOException {
+        int nodeCount = rank.length;
+        int edgeCount = targets.length;
+        long size = align(HEADER_BYTES + 4L * nodeCount + 4L * (nodeCount + 1) + 8L * edgeCount) + 8L * edgeCount;
+
+        File file = new File(fileName);
+        file.delete(); // A stale larger file would otherwise keep its tail
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw");
+             FileChannel channel = out.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(graph.edgeCount()).putInt(edgeCount)
+                    .putLong(graph.fingerprint());
+            buffer.asIntBuffer().put(rank).put(offsets).put(targets).put(middles);
+            buffer.position(buffer.position() + 4 * (2 * nodeCount + 1 + 2 * edgeCount));
+            pad(buffer);
+            buffer.asDoubleBuffer().put(weights);
+            buffer.force();
+        }
+    }
+
+    // Reads a hierarchy written by write() for the same graph. Its shortcuts carry their
+    // own weights, so the file is only accepted if the graph's fingerprint matches.
+    public static ContractionHierarchy read(String fileName, CompactGraph graph) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(fileName, "r");
+             FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException(fileName + " is not a contraction hierarchy");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(fileName + " has unsupported hierarchy version " + version);
+            }
+            int nodeCount = buffer.getInt();
+            int graphEdgeCount = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            long fingerprint = buffer.getLong();
+            if (nodeCount != graph.nodeCount() || graphEdgeCount != graph.edgeCount() || fingerprint != graph.fingerprint()) {
+                throw new IOException(fileName + " was built for a different graph");
+            }
+
+            int[] rank = new int[nodeCount];
+            int[] offsets = new int[nodeCount + 1];
+            int[] targets = new int[edgeCount];
+            int[] middles = new int[edgeCount];
+            double[] weights = new double[edgeCount];
+            buffer.asIntBuffer().get(rank).get(offsets).get(targets).get(middles);
+            buffer.position(buffer.position() + 4 * (2 * nodeCount + 1 + 2 * edgeCount));
+            pad(buffer);
+            buffer.asDoubleBuffer().get(weights);
+            return new ContractionHierarchy(graph, rank, offsets, targets, middles, weights);
+        } catch (RuntimeException e) {
+            // A truncated file shows up as a buffer underflow
+            throw new IOException(fileName + " is not a valid contraction hierarchy", e);
+        }
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static void pad(ByteBuffer buffer) {
+        buffer.position((int) align(buffer.position()));
+    }
+
+    // Working state of the preprocessing: the graph that remains as nodes are contracted,
+    // with one growable edge list per node. Once a node is contracted its list is frozen,
+    // and holds exactly its edges to the higher-ranked nodes.
+    private static class Contraction {
+        private final CompactGraph graph;
+        private final int nodeCount;
+        private final int[][] neighbors;
+        private final double[][] neighborWeights;
+        private final int[][] neighborMiddles;
+        private final int[] degree;
+        private final int[] contractedNeighbors; // Spreads the contraction evenly over the graph
+        private final SearchContext witness = new SearchContext();
+        private final int[] targetSearch; // Witness search in which each node was last a target
+        private int searchCount;
+        // Shortcuts found for the node whose priority was computed last
+        private int[] pendingSources = new int[16];
+        private int[] pendingTargets = new int[16];
+        private double[] pendingWeights = new double[16];
+        private int pendingCount;
+
+        Contraction(CompactGraph graph) {
+            this.graph = graph;
+            this.nodeCount = graph.nodeCount();
+            neighbors = new int[nodeCount][];
+            neighborWeights = new double[nodeCount][];
+            neighborMiddles = new int[nodeCount][];
+            degree = new int[nodeCount];
+            contractedNeighbors = new int[nodeCount];
+            targetSearch = new int[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                int capacity = Math.max(4, graph.offsets[node + 1] - graph.offsets[node]);
+                neighbors[node] = new int[capacity];
+                neighborWeights[node] = new double[capacity];
+                neighborMiddles[node] = new int[capacity];
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                    int target = graph.targets[e];
+                    if (target != node) {
+                        addEdge(node, target, graph.weights[e], -1);
+                        addEdge(target, node, graph.weights[e], -1);
+                    }
+                }
+            }
+            witness.reset(nodeCount);
+        }
+
+        ContractionHierarchy run() {
+            // Contract the node with the lowest priority. Priorities are only recomputed
+            // when a node reaches the front of the queue: if contracting its neighbors has
+            // made it more expensive it goes back in, otherwise the shortcuts just found
+            // for it are inserted.
+            IndexedMinHeap queue = new IndexedMinHeap();
+            queue.clear(nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                queue.push(node, priority(node));
+            }
+            int[] rank = new int[nodeCount];
+            int nextRank = 0;
+            while (!queue.isEmpty()) {
+                int node = queue.pop();
+                double priority = priority(node);
+                if (!queue.isEmpty() && priority > queue.minKey()) {
+                    queue.push(node, priority);
+                    continue;
+                }
+                contract(node);
+                rank[node] = nextRank++;
+            }
+
+            // Pack the frozen edge lists, which now hold only upward edges
+            int[] offsets = new int[nodeCount + 1];
+            for (int node = 0; node < nodeCount; node++) {
+                offsets[node + 1] = offsets[node] + degree[node];
+            }
+            int edgeCount = offsets[nodeCount];
+            int[] targets = new int[edgeCount];
+            int[] middles = new int[edgeCount];
+            double[] weights = new double[edgeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                System.arraycopy(neighbors[node], 0, targets, offsets[node], degree[node]);
+                System.arraycopy(neighborMiddles[node], 0, middles, offsets[node], degree[node]);
+                System.arraycopy(neighborWeights[node], 0, weights, offsets[node], degree[node]);
+            }
+            return new ContractionHierarchy(graph, rank, offsets, targets, middles, weights);
+        }
+
+        // Edge difference: the shortcuts contracting the node would add minus the edges it
+        // would remove, plus its contracted neighbors. Leaves the shortcuts in pending.
+        private double priority(int node) {
+            return findShortcuts(node) - degree[node] + contractedNeighbors[node];
+        }
+
+        // Removes the node, adding the shortcuts found by the last priority(node)
+        private void contract(int node) {
+            for (int i = 0; i < pendingCount; i++) {
+                addEdge(pendingSources[i], pendingTargets[i], pendingWeights[i], node);
+                addEdge(pendingTargets[i], pendingSources[i], pendingWeights[i], node);
+            }
+            for (int i = 0; i < degree[node]; i++) {
+                int neighbor = neighbors[node][i];
+                removeEdge(neighbor, node);
+                contractedNeighbors[neighbor]++;
+            }
+        }
+
+        // Collects in pending the shortcuts needed to contract node, one for each pair of
+        // its neighbors with no witness path avoiding it that is as short, and returns
+        // their number.
+        private int findShortcuts(int node) {
+            pendingCount = 0;
+            for (int i = 0; i < degree[node] - 1; i++) {
+                int source = neighbors[node][i];
+                double sourceWeight = neighborWeights[node][i];
+                double maxWeight = 0;
+                for (int j = i + 1; j < degree[node]; j++) {
+                    maxWeight = Math.max(maxWeight, neighborWeights[node][j]);
+                }
+                witnessSearch(source, node, i + 1, sourceWeight + maxWeight);
+                for (int j = i + 1; j < degree[node]; j++) {
+                    int target = neighbors[node][j];
+                    double via = sourceWeight + neighborWeights[node][j];
+                    if (!witness.isVisited(target) || witness.distance[target] > via) {
+                        if (pendingCount == pendingSources.length) {
+                            pendingSources = Arrays.copyOf(pendingSources, pendingCount * 2);
+                            pendingTargets = Arrays.copyOf(pendingTargets, pendingCount * 2);
+                            pendingWeights = Arrays.copyOf(pendingWeights, pendingCount * 2);
+                        }
+                        pendingSources[pendingCount] = source;
+                        pendingTargets[pendingCount] = target;
+                        pendingWeights[pendingCount] = via;
+                        pendingCount++;
+                    }
+                }
+            }
+            return pendingCount;
+        }
+
+        // Dijkstra's algorithm from source in the remaining graph without the excluded
+        // node, looking for witnesses to the excluded node's neighbors from index
+        // firstTarget on. Stops once every one of them is settled, or past maxDistance
+        // or WITNESS_SETTLE_LIMIT settled nodes. Reached nodes are left visited in the
+        // witness context with an upper bound on their distance.
+        private void witnessSearch(int source, int excluded, int firstTarget, double maxDistance) {
+            searchCount++;
+            for (int j = firstTarget; j < degree[excluded]; j++) {
+                targetSearch[neighbors[excluded][j]] = searchCount;
+            }
+            int targetsLeft = degree[excluded] - firstTarget;
+
+            witness.reset(nodeCount);
+            IndexedMinHeap priorityQueue = witness.heap;
+            priorityQueue.push(source, 0);
+            witness.visit(source, -1, 0);
+            int settled = 0;
+            while (!priorityQueue.isEmpty() && priorityQueue.minKey() <= maxDistance && settled++ < WITNESS_SETTLE_LIMIT) {
+                int current = priorityQueue.pop();
+                if (targetSearch[current] == searchCount && --targetsLeft == 0) {
+                    return; // Every target has its final distance
+                }
+                for (int i = 0; i < degree[current]; i++) {
+                    int neighbor = neighbors[current][i];
+                    if (neighbor == excluded) {
+                        continue;
+                    }
+                    double cost = witness.distance[current] + neighborWeights[current][i];
+                    if (!witness.isVisited(neighbor) || cost < witness.distance[neighbor]) {
+                        witness.visit(neighbor, current, cost);
+                        priorityQueue.pushOrDecrease(neighbor, cost);
+                    }
+                }
+            }
+        }
+
+        // Adds the edge from node to target, or lowers the weight of the existing one
+        private void addEdge(int node, int target, double weight, int middle) {
+            for (int i = 0; i < degree[node]; i++) {
+                if (neighbors[node][i] == target) {
+                    if (weight < neighborWeights[node][i]) {
+                        neighborWeights[node][i] = weight;
+                        neighborMiddles[node][i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (degree[node] == neighbors[node].length) {
+                int capacity = degree[node] * 2;
+                neighbors[node] = Arrays.copyOf(neighbors[node], capacity);
+                neighborWeights[node] = Arrays.copyOf(neighborWeights[node], capacity);
+                neighborMiddles[node] = Arrays.copyOf(neighborMiddles[node], capacity);
+            }
+            neighbors[node][degree[node]] = target;
+            neighborWeights[node][degree[node]] = weight;
+            neighborMiddles[node][degree[node]] = middle;
+            degree[node]++;
+        }
+
+        private void removeEdge(int node, int target) {
+            for (int i = 0; i < degree[node]; i++) {
+                if (neighbors[node][i] == target) {
+                    int last = --degree[node];
+                    neighbors[node][i] = neighbors[node][last];
+                    neighborWeights[node][i] = neighborWeights[node][last];
+                    neighborMiddles[node][i] = neighborMiddles[node][last];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,361 +1,706 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
-public class CoordinateCity {
-    private Map<String, City> cities = new HashMap<>();
+public class CoordinateCity implements RouteGraph {
+    private static final double EARTH_RADIUS = 6371; // Earth's radius in kilometers
+    private static final int HEURISTIC_CACHE_SIZE = 16; // Destinations whose heuristic vectors are kept
+    public static final double DEFAULT_DISTANCE_THRESHOLD = 100.0; // Kilometers between neighboring cities
+    private static final int MIN_PARTITION_SIZE = 256; // Fewest cities handed to one fork-join task
+
+    private final Map<String, City> cities;
+    private City[] cityList; // Cities indexed by id
+    private CompactGraph graph; // Adjacency with the Haversine distance of every edge
+
+    // Per-city coordinates in radians and cos(latitude), indexed by id
+    private double[] latitudeRadians;
+    private double[] longitudeRadians;
+    private double[] cosLatitude;
+
+    // Connected components, so searches reject cities with no path between them at once
+    private ComponentIndex components;
+
+    // Shortest paths between all cities, if made by withAllPairs
+    private final AllPairsTable allPairs;
+
+    // Contraction hierarchy over the graph, if made by withContractionHierarchy
+    private final ContractionHierarchy hierarchy;
+
+    // Road distance lower bounds from a few landmark cities, often tighter than the great circle
+    private LandmarkIndex landmarks;
+
+    // Heuristic estimate from every city to recent destinations
+    private HeuristicCache heuristics;
+
+    // 0 for a network read from files, one more for each withUpdate after that
+    private long version;
 
     public class City {
         String name;
         double latitude;
         double longitude;
-        List<City> neighbors;
+        int id;
 
         public City(String name, double latitude, double longitude) {
             this.name = name;
             this.latitude = latitude;
             this.longitude = longitude;
-            this.neighbors = new ArrayList<>();
-        }
-
-        public void addNeighbor(City neighbor) {
-            neighbors.add(neighbor);
         }
     }
 
     // Calculate distance between two cities using Haversine formula
     private double calculateDistance(City city1, City city2) {
-        double lat1 = Math.toRadians(city1.latitude);
-        double lon1 = Math.toRadians(city1.longitude);
-        double lat2 = Math.toRadians(city2.latitude);
-        double lon2 = Math.toRadians(city2.longitude);
-
-        double dlon = lon2 - lon1;
-        double dlat = lat2 - lat1;
-        double a = Math.pow(Math.sin(dlat / 2), 2) + Math.cos(lat1) * Math.cos(lat2) * Math.pow(Math.sin(dlon / 2), 2);
+        return calculateDistance(city1.id, city2.id);
+    }
+
+    // Haversine distance between two cities by id, using the precomputed radians and cosines
+    private double calculateDistance(int city1, int city2) {
+        double sinHalfLat = Math.sin((latitudeRadians[city2] - latitudeRadians[city1]) / 2);
+        double sinHalfLon = Math.sin((longitudeRadians[city2] - longitudeRadians[city1]) / 2);
+        double a = sinHalfLat * sinHalfLat + cosLatitude[city1] * cosLatitude[city2] * sinHalfLon * sinHalfLon;
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double radius = 6371; // Earth's radius in kilometers
 
-        return radius * c;
+        return EARTH_RADIUS * c;
+    }
+
+    // Lower bound on the road distance between two cities: the larger of the great-circle
+    // distance and the landmark bound
+    private double estimateDistance(int city1, int city2) {
+        return Math.max(calculateDistance(city1, city2), landmarks.estimate(city1, city2));
     }
 
     // Constructor to read coordinates from the file and create the graph
     public CoordinateCity(String fileName) {
-        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                String name = parts[0].trim();
-                double latitude = Double.parseDouble(parts[1].trim());
-                double longitude = Double.parseDouble(parts[2].trim());
-
-                City city = new City(name, latitude, longitude);
-                cities.put(name, city);
+        this(fileName, DEFAULT_DISTANCE_THRESHOLD);
+    }
+
+    // Constructor that links every pair of cities at most distanceThreshold kilometers apart
+    public CoordinateCity(String fileName, double distanceThreshold) {
+        this(fileName, distanceThreshold, false);
+    }
+
+    // Constructor that can find the neighbors of each city on all cores of the common
+    // fork-join pool. The resulting graph is the same in both modes.
+    public CoordinateCity(String fileName, double distanceThreshold, boolean parallelBuild) {
+        cities = new HashMap<>();
+        allPairs = null;
+        hierarchy = null;
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        readCities(fileName, builder);
+
+        // Establish adjacency based on distance threshold. The grid only measures cities in
+        // nearby cells, and returns neighbors in id order as the all-pairs comparison did.
+        SpatialGrid grid = new SpatialGrid(latitudeRadians, longitudeRadians, distanceThreshold, EARTH_RADIUS);
+        List<NeighborTask> partitions = new ArrayList<>();
+        if (parallelBuild) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            int partitionSize = Math.max(MIN_PARTITION_SIZE, cityList.length / (pool.getParallelism() * 4) + 1);
+            for (int first = 0; first < cityList.length; first += partitionSize) {
+                partitions.add(new NeighborTask(grid, distanceThreshold, first, Math.min(cityList.length, first + partitionSize)));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            List<ForkJoinTask<?>> running = new ArrayList<>();
+            for (NeighborTask partition : partitions) {
+                running.add(pool.submit(partition));
+            }
+            for (ForkJoinTask<?> task : running) {
+                task.join();
+            }
+        } else {
+            NeighborTask task = new NeighborTask(grid, distanceThreshold, 0, cityList.length);
+            task.run();
+            partitions.add(task);
         }
 
-        // Establish adjacency based on distance threshold
-        double distanceThreshold = 100.0; // Adjust this threshold as needed
-        for (City city1 : cities.values()) {
-            for (City city2 : cities.values()) {
-                if (city1 != city2 && calculateDistance(city1, city2) <= distanceThreshold) {
-                    city1.addNeighbor(city2);
+        // Merge the partitions in id order so the graph does not depend on task scheduling
+        for (NeighborTask partition : partitions) {
+            for (int city1 = partition.first; city1 < partition.last; city1++) {
+                int[] targets = partition.targets[city1 - partition.first];
+                double[] weights = partition.weights[city1 - partition.first];
+                for (int i = 0; i < targets.length; i++) {
+                    builder.addEdge(city1, targets[i], weights[i]);
                 }
             }
         }
+        graph = builder.build();
+        buildIndexes();
     }
 
-    private void printPath(Map<City, City> parentMap, City start, City end) {
-        List<String> path = new ArrayList<>();
-        City current = end;
-
-        while (current != start) {
-            path.add(current.name);
-            current = parentMap.get(current);
+    // Constructor for the real road network: the cities and their coordinates come from
+    // fileName and the roads from roadFileName, an edge list like Adjacencies.txt. Every
+    // road is weighted with the Haversine distance between its cities, ignoring any length
+    // in the edge list, so the great-circle heuristic of A* never overestimates a route.
+    // Roads to cities without coordinates are reported on System.err and skipped.
+    public CoordinateCity(String fileName, String roadFileName) {
+        cities = new HashMap<>();
+        allPairs = null;
+        hierarchy = null;
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        readCities(fileName, builder);
+
+        // The edge list is parsed into a builder of its own and its names mapped to cities
+        CompactGraph.Builder roadNames = new CompactGraph.Builder();
+        try {
+            GraphFileParser parser = new GraphFileParser(roadNames);
+            parser.parseEdges(roadFileName, (city1, city2, weight) -> {
+                City from = cities.get(roadNames.name(city1));
+                City to = cities.get(roadNames.name(city2));
+                if (from == null || to == null) {
+                    System.err.println(roadFileName + ": no coordinates for the road " + roadNames.name(city1) + " - " + roadNames.name(city2));
+                    return;
+                }
+                double distance = calculateDistance(from, to);
+                builder.addEdge(from.id, to.id, distance);
+                builder.addEdge(to.id, from.id, distance);
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+        graph = builder.build();
+        buildIndexes();
+    }
 
-        path.add(start.name);
-        Collections.reverse(path);
+    // Reads the cities into cityList and the builder's node dictionary. Cities are
+    // numbered in file order as they are read, so searches can keep their state in
+    // arrays. A repeated name updates the coordinates of the earlier row.
+    private void readCities(String fileName, CompactGraph.Builder builder) {
+        List<City> loaded = new ArrayList<>();
+        try {
+            GraphFileParser parser = new GraphFileParser(builder);
+            parser.parseCoordinates(fileName, (id, latitude, longitude) -> {
+                if (id < loaded.size()) {
+                    loaded.get(id).latitude = latitude;
+                    loaded.get(id).longitude = longitude;
+                    return;
+                }
+                City city = new City(builder.name(id), latitude, longitude);
+                city.id = id;
+                loaded.add(city);
+                cities.put(city.name, city);
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        cityList = loaded.toArray(new City[0]);
+        precomputeCoordinates();
+    }
 
-        System.out.println("Path: " + String.join(" -> ", path));
+    // Derives the component, landmark and heuristic indexes from the graph
+    private void buildIndexes() {
+        components = new ComponentIndex(graph);
+        landmarks = new LandmarkIndex(graph, components, LandmarkIndex.DEFAULT_LANDMARKS);
+        heuristics = new HeuristicCache(cityList.length, HEURISTIC_CACHE_SIZE, this::estimateDistance);
     }
 
+    // Constructor that restores the cities and their adjacency from a snapshot
+    private CoordinateCity(GraphSnapshot snapshot) {
+        this(snapshot.graph, snapshot.latitudes, snapshot.longitudes, null, null);
+    }
 
-    // Depth-First Search
-    public void dfs(String startCity, String endCity) {
-        City start = cities.get(startCity);
-        City end = cities.get(endCity);
+    // Constructor over a finished graph and the coordinates of its cities in degrees. If
+    // the graph is previous with update applied, it keeps the landmarks of previous where possible.
+    private CoordinateCity(CompactGraph graph, double[] latitudes, double[] longitudes, CoordinateCity previous, GraphUpdate update) {
+        this.graph = graph;
+        this.cities = new HashMap<>();
+        this.allPairs = null;
+        this.hierarchy = null;
+        cityList = new City[graph.nodeCount()];
+        for (int i = 0; i < cityList.length; i++) {
+            City city = new City(graph.name(i), latitudes[i], longitudes[i]);
+            city.id = i;
+            cityList[i] = city;
+            cities.put(city.name, city);
+        }
+        precomputeCoordinates();
+        if (previous == null) {
+            buildIndexes();
+        } else {
+            version = previous.version + 1;
+            components = new ComponentIndex(graph);
+            landmarks = previous.landmarks.forUpdate(update, previous.graph, graph, components);
+            heuristics = new HeuristicCache(cityList.length, HEURISTIC_CACHE_SIZE, this::estimateDistance);
+        }
+    }
 
-        long startTime = System.currentTimeMillis();
+    // Copy of base sharing its cities and indexes, with the given table and hierarchy
+    private CoordinateCity(CoordinateCity base, AllPairsTable allPairs, ContractionHierarchy hierarchy) {
+        this.cities = base.cities;
+        this.cityList = base.cityList;
+        this.graph = base.graph;
+        this.latitudeRadians = base.latitudeRadians;
+        this.longitudeRadians = base.longitudeRadians;
+        this.cosLatitude = base.cosLatitude;
+        this.components = base.components;
+        this.landmarks = base.landmarks;
+        this.heuristics = base.heuristics;
+        this.version = base.version;
+        this.allPairs = allPairs;
+        this.hierarchy = hierarchy;
+    }
 
-        Stack<City> stack = new Stack<>();
-        stack.push(start);
-        Map<City, Boolean> visited = new HashMap<>();
-        visited.put(start, true);
+    // Returns a new network with the update applied, leaving this one unchanged for the
+    // searches running on it. Added cities need coordinates, roads added without a length
+    // get the great-circle distance, and no road may be shorter than that, or the A*
+    // heuristic could overestimate; these raise IllegalArgumentException. The components
+    // and heuristics are recomputed and the landmarks carried over, as LandmarkIndex
+    // describes, while an all-pairs table or contraction hierarchy is not carried over and
+    // must be built again.
+    @Override
+    public CoordinateCity withUpdate(GraphUpdate update) {
+        CompactGraph updated = update.applyTo(graph,
+                (city1, city2) -> greatCircleDistance(position(city1, update), position(city2, update)));
+        update.checkLengths((city1, city2) -> greatCircleDistance(position(city1, update), position(city2, update)) * (1 - 1e-12),
+                "shorter than the great-circle distance");
+
+        double[] latitudes = new double[updated.nodeCount()];
+        double[] longitudes = new double[updated.nodeCount()];
+        for (int i = 0; i < latitudes.length; i++) {
+            double[] position = position(updated.name(i), update);
+            latitudes[i] = position[0];
+            longitudes[i] = position[1];
+        }
+        return new CoordinateCity(updated, latitudes, longitudes, this, update);
+    }
 
-        Map<City, City> parentMap = new HashMap<>();
+    // Latitude and longitude of a city of this network or one the update adds
+    private double[] position(String name, GraphUpdate update) {
+        double[] added = update.addedCoordinates(name);
+        if (added != null) {
+            return added;
+        }
+        City city = cities.get(name);
+        if (city == null) {
+            throw new IllegalArgumentException("City " + name + " needs coordinates");
+        }
+        return new double[]{city.latitude, city.longitude};
+    }
 
-        while (!stack.isEmpty()) {
-            City currentCity = stack.pop();
+    // Haversine distance between two {latitude, longitude} positions in degrees
+    private static double greatCircleDistance(double[] position1, double[] position2) {
+        double latitude1 = Math.toRadians(position1[0]);
+        double latitude2 = Math.toRadians(position2[0]);
+        double sinHalfLat = Math.sin((latitude2 - latitude1) / 2);
+        double sinHalfLon = Math.sin(Math.toRadians(position2[1] - position1[1]) / 2);
+        double a = sinHalfLat * sinHalfLat + Math.cos(latitude1) * Math.cos(latitude2) * sinHalfLon * sinHalfLon;
+        return EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
 
-            if (currentCity == end) {
-                long endTime = System.currentTimeMillis();
-                double distance = calculateDistance(start, end);
-                long elapsedTime = endTime - startTime;
+    // Loads cities and adjacency written by writeSnapshot, without re-parsing or rebuilding
+    public static CoordinateCity fromSnapshot(String fileName) throws IOException {
+        GraphSnapshot snapshot = GraphSnapshot.read(fileName);
+        if (!snapshot.hasCoordinates()) {
+            throw new IOException(fileName + " has no city coordinates");
+        }
+        return new CoordinateCity(snapshot);
+    }
 
-                printPath(parentMap, start, end);
-                System.out.println("Distance: " + distance + " kilometers");
-                System.out.println("Time taken: " + elapsedTime + " milliseconds");
-                return;
-            }
+    // Returns this network with the shortest route between every pair of cities computed
+    // up front, so that A* queries become table lookups. Only for networks of up to
+    // AllPairsTable.MAX_NODES cities. This network is left unchanged, so it may already
+    // be shared with searching threads.
+    public CoordinateCity withAllPairs() {
+        return new CoordinateCity(this, new AllPairsTable(graph), hierarchy);
+    }
 
-            for (City neighbor : currentCity.neighbors) {
-                if (!visited.containsKey(neighbor)) {
-                    stack.push(neighbor);
-                    visited.put(neighbor, true);
-                    parentMap.put(neighbor, currentCity);
-                }
-            }
-        }
+    // Returns this network with the graph preprocessed into a contraction hierarchy for
+    // contractionHierarchySearch
+    public CoordinateCity withContractionHierarchy() {
+        return new CoordinateCity(this, allPairs, ContractionHierarchy.build(graph));
+    }
 
+    // Returns this network with a hierarchy written by writeContractionHierarchy for this
+    // same graph
+    public CoordinateCity withContractionHierarchy(String fileName) throws IOException {
+        return new CoordinateCity(this, allPairs, ContractionHierarchy.read(fileName, graph));
     }
 
-    // Breadth-first search
-    public void bfs(String startCity, String endCity) {
-        City start = cities.get(startCity);
-        City end = cities.get(endCity);
+    public boolean hasContractionHierarchy() {
+        return hierarchy != null;
+    }
 
-        long startTime = System.currentTimeMillis();
+    public void writeContractionHierarchy(String fileName) throws IOException {
+        requireHierarchy().write(fileName);
+    }
 
-        Queue<City> queue = new LinkedList<>();
-        queue.add(start);
-        Map<City, Boolean> visited = new HashMap<>();
-        visited.put(start, true);
+    private ContractionHierarchy requireHierarchy() {
+        if (hierarchy == null) {
+            throw new IllegalStateException("No contraction hierarchy has been built or read");
+        }
+        return hierarchy;
+    }
 
-        Map<City, City> parentMap = new HashMap<>();
+    // Saves the cities, their coordinates and the adjacency for fromSnapshot, marked with
+    // the sourceKey of the files and distance threshold they were built from; see
+    // GraphSnapshot.isCurrent.
+    public void writeSnapshot(String fileName, long sourceKey) throws IOException {
+        double[] latitudes = new double[cityList.length];
+        double[] longitudes = new double[cityList.length];
+        for (City city : cityList) {
+            latitudes[city.id] = city.latitude;
+            longitudes[city.id] = city.longitude;
+        }
+        GraphSnapshot.write(fileName, graph, latitudes, longitudes, sourceKey);
+    }
 
-        while (!queue.isEmpty()) {
-            City currentCity = queue.poll();
+    // Fills the per-city radians and cos(latitude) arrays from cityList
+    private void precomputeCoordinates() {
+        latitudeRadians = new double[cityList.length];
+        longitudeRadians = new double[cityList.length];
+        cosLatitude = new double[cityList.length];
+        for (City city : cityList) {
+            latitudeRadians[city.id] = Math.toRadians(city.latitude);
+            longitudeRadians[city.id] = Math.toRadians(city.longitude);
+            cosLatitude[city.id] = Math.cos(latitudeRadians[city.id]);
+        }
+    }
 
-            if (currentCity == end) {
-                long endTime = System.currentTimeMillis();
-                double distance = calculateDistance(start, end);
-                long elapsedTime = endTime - startTime;
-                printPath(parentMap, start, end);
-                System.out.println("Distance: " + distance + " kilometers");
-                System.out.println("Time taken: " + elapsedTime + " milliseconds");
-                return;
-            }
+    // Finds the neighbors and edge distances of cities first .. last - 1. Each task only
+    // writes its own arrays, so partitions run without locking.
+    private class NeighborTask implements Runnable {
+        final SpatialGrid grid;
+        final double distanceThreshold;
+        final int first;
+        final int last;
+        int[][] targets;
+        double[][] weights;
+
+        NeighborTask(SpatialGrid grid, double distanceThreshold, int first, int last) {
+            this.grid = grid;
+            this.distanceThreshold = distanceThreshold;
+            this.first = first;
+            this.last = last;
+        }
 
-            for (City neighbor : currentCity.neighbors) {
-                if (!visited.containsKey(neighbor)) {
-                    queue.add(neighbor);
-                    visited.put(neighbor, true);
-                    parentMap.put(neighbor, currentCity);
+        @Override
+        public void run() {
+            targets = new int[last - first][];
+            weights = new double[last - first][];
+            int[] neighbors = new int[cityList.length];
+            for (int city1 = first; city1 < last; city1++) {
+                int count = grid.neighborsWithin(city1, distanceThreshold, CoordinateCity.this::calculateDistance, neighbors);
+                int[] cityTargets = Arrays.copyOf(neighbors, count);
+                double[] cityWeights = new double[count];
+                for (int i = 0; i < count; i++) {
+                    cityWeights[i] = calculateDistance(city1, cityTargets[i]);
                 }
+                targets[city1 - first] = cityTargets;
+                weights[city1 - first] = cityWeights;
             }
         }
+    }
 
+    @Override
+    public long version() {
+        return version;
     }
 
-    // Iterative Deepening Depth-First Search (ID-DFS)
-    public void idDfs(String startCity, String endCity) {
+    @Override
+    public SearchResult search(SearchAlgorithm algorithm, String startCity, String endCity) {
+        switch (algorithm) {
+            case BRUTE_FORCE:
+                return bruteForceSearch(startCity, endCity);
+            case BREADTH_FIRST:
+                return bfs(startCity, endCity);
+            case DEPTH_FIRST:
+                return dfs(startCity, endCity);
+            case ITERATIVE_DEEPENING:
+                return idDfs(startCity, endCity);
+            case BEST_FIRST:
+                return bestFirstSearch(startCity, endCity);
+            case A_STAR:
+                return aStarSearch(startCity, endCity);
+            case BIDIRECTIONAL_BREADTH_FIRST:
+                return bidirectionalBfs(startCity, endCity);
+            case BIDIRECTIONAL_A_STAR:
+                return bidirectionalAStarSearch(startCity, endCity);
+            case CONTRACTION_HIERARCHY:
+                return contractionHierarchySearch(startCity, endCity);
+            case DIJKSTRA:
+                return dijkstraSearch(startCity, endCity);
+            default:
+                throw new IllegalArgumentException(algorithm + " is not supported by CoordinateCity");
+        }
+    }
+
+    // Shortest road distances in kilometers from every source city to every target city,
+    // the same distances A* finds one pair at a time
+    @Override
+    public DistanceMatrix distanceMatrix(List<String> sourceCities, List<String> targetCities, boolean withPaths) {
+        return ManyToManySearch.compute(graph, components, sourceCities, targetCities, withPaths);
+    }
+
+    // Depth-First Search
+    public SearchResult dfs(String startCity, String endCity) {
+        long startTime = System.nanoTime();
         City start = cities.get(startCity);
         City end = cities.get(endCity);
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return SearchResult.notFound(SearchAlgorithm.DEPTH_FIRST, startCity, endCity, graph, startTime);
+        }
 
-        long startTime = System.currentTimeMillis();
-
+        SearchContext context = SearchContext.acquire(cityList.length);
+        int[] stack = context.nodes;
+        int top = 0;
+        stack[top++] = start.id;
+        context.countPush(top);
+        context.visit(start.id, -1, 0);
 
-        int maxDepth = 100; // Set a maximum depth limit, adjust as needed
+        while (top > 0) {
+            int currentCity = stack[--top];
+            context.countPop();
 
-        for (int depthLimit = 0; depthLimit <= maxDepth; depthLimit++) {
-            Map<City, Boolean> visited = new HashMap<>();
-            Map<City, City> parentMap = new HashMap<>();
-            if (idDfsRecursive(start, end, depthLimit, visited, parentMap)) {
-                long endTime = System.currentTimeMillis();
-                double distance = calculateDistance(start, end);
-                long elapsedTime = endTime - startTime;
-                printPath(parentMap, start, end);
-                System.out.println("Distance: " + distance + " kilometers");
-                System.out.println("Time taken: " + elapsedTime + " milliseconds");
-                return;
+            if (currentCity == end.id) {
+                return SearchResult.found(SearchAlgorithm.DEPTH_FIRST, startCity, endCity, graph, context, context.buildPath(end.id), context.distance[end.id], startTime);
+            }
+            context.expand(graph.offsets, currentCity);
+
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                if (!context.isVisited(neighbor)) {
+                    stack[top++] = neighbor;
+                    context.countPush(top);
+                    context.visit(neighbor, currentCity, context.distance[currentCity] + graph.weights[e]);
+                }
             }
         }
 
+        return SearchResult.notFound(SearchAlgorithm.DEPTH_FIRST, startCity, endCity, graph, context, startTime);
     }
 
-    private boolean idDfsRecursive(City currentCity, City endCity, int depthLimit, Map<City, Boolean> visited, Map<City, City> parentMap) {
-        if (depthLimit < 0) {
-            return false; // Depth limit reached without finding the destination
+    // Breadth-first search
+    public SearchResult bfs(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        City start = cities.get(startCity);
+        City end = cities.get(endCity);
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return SearchResult.notFound(SearchAlgorithm.BREADTH_FIRST, startCity, endCity, graph, startTime);
         }
 
-        if (currentCity == endCity) {
-            return true; // Destination found
-        }
+        SearchContext context = SearchContext.acquire(cityList.length);
+        int[] queue = context.nodes;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start.id;
+        context.countPush(tail - head);
+        context.visit(start.id, -1, 0);
 
-        visited.put(currentCity, true);
+        while (head < tail) {
+            int currentCity = queue[head++];
+            context.countPop();
 
-        for (City neighbor : currentCity.neighbors) {
-            if (!visited.containsKey(neighbor)) {
-                parentMap.put(neighbor, currentCity);
-                if (idDfsRecursive(neighbor, endCity, depthLimit - 1, visited, parentMap)) {
-                    return true;
+            if (currentCity == end.id) {
+                return SearchResult.found(SearchAlgorithm.BREADTH_FIRST, startCity, endCity, graph, context, context.buildPath(end.id), context.distance[end.id], startTime);
+            }
+            context.expand(graph.offsets, currentCity);
+
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                if (!context.isVisited(neighbor)) {
+                    queue[tail++] = neighbor;
+                    context.countPush(tail - head);
+                    context.visit(neighbor, currentCity, context.distance[currentCity] + graph.weights[e]);
                 }
             }
         }
 
-        return false; // Destination not found within the depth limit
+        return SearchResult.notFound(SearchAlgorithm.BREADTH_FIRST, startCity, endCity, graph, context, startTime);
     }
 
-    // Best-First Search (BFS) using Euclidean distance as the heuristic
-    public void bestFirstSearch(String startCity, String endCity) {
+    // Iterative Deepening Depth-First Search (ID-DFS) for the path with the fewest hops,
+    // stopping once a depth bound covers the whole component of the start city
+    public IterativeDeepeningResult idDfs(String startCity, String endCity) {
+        long startTime = System.nanoTime();
         City start = cities.get(startCity);
         City end = cities.get(endCity);
-        long startTime = System.currentTimeMillis();
-
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return IterativeDeepeningResult.notStarted(SearchAlgorithm.ITERATIVE_DEEPENING, startCity, endCity, graph, startTime);
+        }
 
-        PriorityQueue<City> priorityQueue = new PriorityQueue<>(new Comparator<City>() {
-            @Override
-            public int compare(City city1, City city2) {
-                // Use Euclidean distance as the heuristic
-                double distance1 = calculateEuclideanDistance(city1, end);
-                double distance2 = calculateEuclideanDistance(city2, end);
-                return Double.compare(distance1, distance2);
-            }
-        });
+        SearchContext context = SearchContext.acquire(cityList.length);
+        int pathLength = DepthFirstSearch.iterativeDeepening(graph, start.id, end.id, context);
+        return IterativeDeepeningResult.of(SearchAlgorithm.ITERATIVE_DEEPENING, startCity, endCity, graph, context, pathLength, pathLength > 0 ? context.distance[end.id] : 0, startTime);
+    }
 
-        Map<City, Boolean> visited = new HashMap<>();
-        priorityQueue.add(start);
-        visited.put(start, true);
+    // Best-First Search (BFS) using the estimated distance to the destination as the heuristic
+    public SearchResult bestFirstSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        City start = cities.get(startCity);
+        City end = cities.get(endCity);
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return SearchResult.notFound(SearchAlgorithm.BEST_FIRST, startCity, endCity, graph, startTime);
+        }
 
-        Map<City, City> parentMap = new HashMap<>();
+        // The heuristic is read from the cached vector for this destination
+        double[] heuristic = heuristics.vectorFor(end.id);
+        SearchContext context = SearchContext.acquire(cityList.length);
+        IndexedMinHeap priorityQueue = context.heap;
+        priorityQueue.push(start.id, heuristic[start.id]);
+        context.visit(start.id, -1, 0);
 
         while (!priorityQueue.isEmpty()) {
-            City currentCity = priorityQueue.poll();
-            if (currentCity == end) {
-                long endTime = System.currentTimeMillis();
-                double distance = calculateDistance(start, end);
-                long elapsedTime = endTime - startTime;
-                printPath(parentMap, start, end);
-                System.out.println("Distance: " + distance + " kilometers");
-                System.out.println("Time taken: " + elapsedTime + " milliseconds");
-                return;
+            int currentCity = priorityQueue.pop();
+            if (currentCity == end.id) {
+                return SearchResult.found(SearchAlgorithm.BEST_FIRST, startCity, endCity, graph, context, context.buildPath(end.id), context.distance[end.id], startTime);
             }
+            context.expand(graph.offsets, currentCity);
 
-            for (City neighbor : currentCity.neighbors) {
-                if (!visited.containsKey(neighbor)) {
-                    priorityQueue.add(neighbor);
-                    visited.put(neighbor, true);
-                    parentMap.put(neighbor, currentCity);
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                if (!context.isVisited(neighbor)) {
+                    priorityQueue.push(neighbor, heuristic[neighbor]);
+                    context.visit(neighbor, currentCity, context.distance[currentCity] + graph.weights[e]);
                 }
             }
         }
 
-    }
-
-    // Calculate Euclidean distance between two cities
-    private double calculateEuclideanDistance(City city1, City city2) {
-        double dx = city1.latitude - city2.latitude;
-        double dy = city1.longitude - city2.longitude;
-        return Math.sqrt(dx * dx + dy * dy);
+        return SearchResult.notFound(SearchAlgorithm.BEST_FIRST, startCity, endCity, graph, context, startTime);
     }
 
 
-    // A* Search using calculateDistance as the path cost function and Euclidean distance as the heuristic
-    public void aStarSearch(String startCity, String endCity) {
+    // A* Search using the precomputed Haversine edge distances as the path cost and the
+    // larger of the great-circle distance and the landmark bound to the destination as the
+    // heuristic. The heuristic is in the same unit as the path cost and never overestimates it.
+    public SearchResult aStarSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
         City start = cities.get(startCity);
         City end = cities.get(endCity);
-
-        long startTime = System.currentTimeMillis();
-
-        if (start == null || end == null) {
-            return;
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return SearchResult.notFound(SearchAlgorithm.A_STAR, startCity, endCity, graph, startTime);
+        }
+        if (allPairs != null) {
+            return allPairs.search(SearchAlgorithm.A_STAR, startCity, endCity, start.id, end.id, startTime);
         }
 
-        PriorityQueue<City> priorityQueue = new PriorityQueue<>(new Comparator<City>() {
-            @Override
-            public int compare(City city1, City city2) {
-                // Calculate the total cost (f(n)) for each city using g(n) + h(n)
-                double cost1 = calculateDistance(city1, start) + calculateEuclideanDistance(city1, end);
-                double cost2 = calculateDistance(city2, start) + calculateEuclideanDistance(city2, end);
-                return Double.compare(cost1, cost2);
-            }
-        });
-
-        Map<City, Double> pathCosts = new HashMap<>();
-        Map<City, City> parentMap = new HashMap<>();
+        // Cities are keyed by their total cost f(n) = g(n) + h(n), where g(n) is the path
+        // cost so far; the key is stored in the heap and lowered when g(n) improves
+        double[] heuristic = heuristics.vectorFor(end.id);
+        SearchContext context = SearchContext.acquire(cityList.length);
+        IndexedMinHeap priorityQueue = context.heap;
 
-        priorityQueue.add(start);
-        pathCosts.put(start, 0.0);
+        priorityQueue.push(start.id, heuristic[start.id]);
+        context.visit(start.id, -1, 0.0);
 
         while (!priorityQueue.isEmpty()) {
-            City currentCity = priorityQueue.poll();
-
-            if (currentCity == end) {
-                long endTime = System.currentTimeMillis();
-                double distance = calculateDistance(start, end);
-                long elapsedTime = endTime - startTime;
-                printPath(parentMap, start, end);
-                System.out.println("Distance: " + distance + " kilometers");
-                System.out.println("Time taken: " + elapsedTime + " milliseconds");
-                return;
+            int currentCity = priorityQueue.pop();
+
+            if (currentCity == end.id) {
+                return SearchResult.found(SearchAlgorithm.A_STAR, startCity, endCity, graph, context, context.buildPath(end.id), context.distance[end.id], startTime);
             }
+            context.expand(graph.offsets, currentCity);
 
-            for (City neighbor : currentCity.neighbors) {
-                double newCost = pathCosts.get(currentCity) + calculateDistance(currentCity, neighbor);
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                double newCost = context.distance[currentCity] + graph.weights[e];
 
-                if (!pathCosts.containsKey(neighbor) || newCost < pathCosts.get(neighbor)) {
-                    pathCosts.put(neighbor, newCost);
-                    priorityQueue.add(neighbor);
-                    // Update the parent map
-                    parentMap.put(neighbor, currentCity);
+                if (!context.isVisited(neighbor) || newCost < context.distance[neighbor]) {
+                    // Record the new cost and parent
+                    context.visit(neighbor, currentCity, newCost);
+                    priorityQueue.pushOrDecrease(neighbor, newCost + heuristic[neighbor]);
                 }
             }
         }
+
+        return SearchResult.notFound(SearchAlgorithm.A_STAR, startCity, endCity, graph, context, startTime);
     }
 
-    // Function to perform brute-force search to find a path between two cities.
-    public void bruteForceSearch(String startCity, String endCity) {
+    // Breadth-first search that grows frontiers from both cities until they meet
+    public SearchResult bidirectionalBfs(String startCity, String endCity) {
+        long startTime = System.nanoTime();
         City start = cities.get(startCity);
         City end = cities.get(endCity);
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return SearchResult.notFound(SearchAlgorithm.BIDIRECTIONAL_BREADTH_FIRST, startCity, endCity, graph, startTime);
+        }
+
+        SearchContext context = SearchContext.acquire(cityList.length);
+        double[] pathDistance = new double[1];
+        int pathLength = BidirectionalSearch.breadthFirstSearch(graph, start.id, end.id, context, pathDistance);
 
-        long startTime = System.currentTimeMillis();
+        if (pathLength > 0) {
+            return SearchResult.found(SearchAlgorithm.BIDIRECTIONAL_BREADTH_FIRST, startCity, endCity, graph, context, pathLength, pathDistance[0], startTime);
+        }
+        return SearchResult.notFound(SearchAlgorithm.BIDIRECTIONAL_BREADTH_FIRST, startCity, endCity, graph, context, startTime);
+    }
 
-        List<String> path = new ArrayList<>();
-        path.add(startCity);
+    // A* search from both cities at once, using the distance estimate to each end as
+    // the heuristic and stopping once the best path through the meeting point is optimal
+    public SearchResult bidirectionalAStarSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        City start = cities.get(startCity);
+        City end = cities.get(endCity);
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return SearchResult.notFound(SearchAlgorithm.BIDIRECTIONAL_A_STAR, startCity, endCity, graph, startTime);
+        }
 
-        boolean foundPath = bruteForceHelper(start, end, path);
+        double[] toEnd = heuristics.vectorFor(end.id);
+        double[] toStart = heuristics.vectorFor(start.id);
+        SearchContext context = SearchContext.acquire(cityList.length);
+        double[] pathDistance = new double[1];
+        int pathLength = BidirectionalSearch.aStarSearch(graph, start.id, end.id,
+                city -> toEnd[city], city -> toStart[city],
+                context, pathDistance);
 
-        if (foundPath) {
-            long endTime = System.currentTimeMillis();
-            double distance = calculateDistance(start, end);
-            long elapsedTime = endTime - startTime;
-            System.out.println("Path from " + startCity + " to " + endCity + ": " + String.join(" -> ", path));
-            System.out.println("Distance: " + distance + " kilometers");
-            System.out.println("Time taken: " + elapsedTime + " milliseconds");
-        } else {
-            System.out.println("No path found from " + startCity + " to " + endCity);
+        if (pathLength > 0) {
+            return SearchResult.found(SearchAlgorithm.BIDIRECTIONAL_A_STAR, startCity, endCity, graph, context, pathLength, pathDistance[0], startTime);
         }
+        return SearchResult.notFound(SearchAlgorithm.BIDIRECTIONAL_A_STAR, startCity, endCity, graph, context, startTime);
     }
 
-    private boolean bruteForceHelper(City currentCity, City endCity, List<String> path) {
-        if (currentCity == endCity) {
-            return true; // Path found
+    // Dijkstra's algorithm over the Haversine edge distances: A* without a heuristic.
+    // The distances are not whole numbers, so the integer queues do not apply.
+    public SearchResult dijkstraSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        City start = cities.get(startCity);
+        City end = cities.get(endCity);
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return SearchResult.notFound(SearchAlgorithm.DIJKSTRA, startCity, endCity, graph, startTime);
         }
 
-        for (City neighbor : currentCity.neighbors) {
-            if (!path.contains(neighbor.name)) {
-                path.add(neighbor.name);
-                if (bruteForceHelper(neighbor, endCity, path)) {
-                    return true; // Path found
-                }
-                path.remove(path.size() - 1); // Backtrack
-            }
+        SearchContext context = SearchContext.acquire(cityList.length);
+        int pathLength = DijkstraSearch.heapSearch(graph, start.id, end.id, context);
+        if (pathLength > 0) {
+            return SearchResult.found(SearchAlgorithm.DIJKSTRA, startCity, endCity, graph, context, pathLength, context.distance[end.id], startTime);
+        }
+        return SearchResult.notFound(SearchAlgorithm.DIJKSTRA, startCity, endCity, graph, context, startTime);
+    }
+
+    // Shortest route over the contraction hierarchy, which must have been built or read
+    // first. Finds a route as short as aStarSearch while expanding far fewer cities.
+    public SearchResult contractionHierarchySearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        ContractionHierarchy hierarchy = requireHierarchy();
+        City start = cities.get(startCity);
+        City end = cities.get(endCity);
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return SearchResult.notFound(SearchAlgorithm.CONTRACTION_HIERARCHY, startCity, endCity, graph, startTime);
+        }
+
+        SearchContext context = SearchContext.acquire(cityList.length);
+        double[] pathDistance = new double[1];
+        int pathLength = hierarchy.search(start.id, end.id, context, pathDistance);
+
+        if (pathLength > 0) {
+            return SearchResult.found(SearchAlgorithm.CONTRACTION_HIERARCHY, startCity, endCity, graph, context, pathLength, pathDistance[0], startTime);
+        }
+        return SearchResult.notFound(SearchAlgorithm.CONTRACTION_HIERARCHY, startCity, endCity, graph, context, startTime);
+    }
+
+    // Function to perform brute-force search to find a path between two cities.
+    public SearchResult bruteForceSearch(String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        City start = cities.get(startCity);
+        City end = cities.get(endCity);
+        if (start == null || end == null || !components.connected(start.id, end.id)) {
+            return SearchResult.notFound(SearchAlgorithm.BRUTE_FORCE, startCity, endCity, graph, startTime);
         }
 
-        return false; // No path found from this city
+        // Tries every simple path from the start city in turn until one reaches the end city
+        SearchContext context = SearchContext.acquire(cityList.length);
+        int pathLength = DepthFirstSearch.simplePath(graph, start.id, end.id, Integer.MAX_VALUE, context);
+
+        if (pathLength > 0) {
+            return SearchResult.found(SearchAlgorithm.BRUTE_FORCE, startCity, endCity, graph, context, pathLength, context.distance[end.id], startTime);
+        }
+        return SearchResult.notFound(SearchAlgorithm.BRUTE_FORCE, startCity, endCity, graph, context, startTime);
     }
-}
\ No newline at end of file
+}
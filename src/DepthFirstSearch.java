@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+// Depth-first searches that keep their stack in the int arrays of a SearchContext
+// instead of on the thread stack, so paths of any length can be explored without
+// StackOverflowError or per-frame allocation. Depth d of the stack is the node
+// context.path[d] together with context.cursor[d], the next of its edges to try. Edges
+// are counted as relaxed one at a time, as the cursors reach them.
+public class DepthFirstSearch {
+    private DepthFirstSearch() {
+    }
+
+    // Backtracking search over simple paths from start, trying neighbors in adjacency
+    // order, that stops at the first path reaching end. The visited set holds exactly the
+    // cities on the current path, so every simple path may be tried: exponential in the
+    // worst case. Paths are extended only from cities at most maxDepth - 1 hops from start,
+    // though a neighbor that is the end city is always accepted.
+    //
+    // Writes the path into context.path and returns its length, or 0 if there is none;
+    // context.distance[end] then holds the path distance.
+    public static int simplePath(CompactGraph graph, int start, int end, int maxDepth, SearchContext context) {
+        int[] path = context.path;
+        int[] cursor = context.cursor;
+        double[] distance = context.distance;
+
+        path[0] = start;
+        distance[start] = 0;
+        if (start == end) {
+            return 1;
+        }
+        if (maxDepth < 1) {
+            return 0;
+        }
+        context.markVisited(start);
+        context.expanded++;
+        context.countPush(1);
+        cursor[0] = graph.offsets[start];
+        int depth = 0;
+
+        while (depth >= 0) {
+            int current = path[depth];
+            if (cursor[depth] == graph.offsets[current + 1]) {
+                context.unmarkVisited(current); // Backtrack
+                context.countPop();
+                depth--;
+                continue;
+            }
+
+            int e = cursor[depth]++;
+            context.countRelaxed();
+            int neighbor = graph.targets[e];
+            if (context.isVisited(neighbor)) {
+                continue;
+            }
+            path[depth + 1] = neighbor;
+            distance[neighbor] = distance[current] + graph.weights[e];
+            if (neighbor == end) {
+                return depth + 2; // Path found
+            }
+            if (depth + 2 > maxDepth) {
+                continue; // Reached the depth limit
+            }
+
+            depth++;
+            context.markVisited(neighbor);
+            context.expanded++;
+            context.countPush(depth + 1);
+            cursor[depth] = graph.offsets[neighbor];
+        }
+        return 0; // No path found
+    }
+
+    // Iterative deepening search for a path with the fewest edges. Iteration L runs a
+    // depth-first search over paths of at most L edges, and remembers in context.depth the
+    // shallowest depth at which each node has been reached so far, in this iteration or
+    // an earlier one. A node reached again no shallower than before is not expanded again,
+    // which keeps each iteration close to linear in the size of the explored region. The
+    // search stops at the first iteration that finds the end city, or that never had to
+    // stop at the depth limit: the whole component of the start city has then been seen.
+    //
+    // Writes the path into context.path and returns its length, or 0 if there is none;
+    // context.distance[end] then holds the path distance. The nodes expanded by iteration
+    // i are in context.iterationExpanded[i], for i < context.iterations.
+    public static int iterativeDeepening(CompactGraph graph, int start, int end, SearchContext context) {
+        context.path[0] = start;
+        context.distance[start] = 0;
+        for (int limit = 0; ; limit++) {
+            long expandedBefore = context.expanded;
+            int pathLength = depthLimited(graph, start, end, limit, context);
+            if (context.iterations == context.iterationExpanded.length) {
+                context.iterationExpanded = Arrays.copyOf(context.iterationExpanded, context.iterations * 2);
+            }
+            context.iterationExpanded[context.iterations++] = context.expanded - expandedBefore;
+            if (pathLength != 0) {
+                return Math.max(pathLength, 0); // Found, or -1 if the limit was never reached
+            }
+        }
+    }
+
+    // One iteration of iterativeDeepening. Returns the path length if the end city was
+    // found, 0 if some node was left unexpanded at the depth limit, or -1 if not.
+    private static int depthLimited(CompactGraph graph, int start, int end, int limit, SearchContext context) {
+        int[] path = context.path;
+        int[] cursor = context.cursor;
+        int[] depth = context.depth;
+        int[] depthIteration = context.depthIteration;
+        double[] distance = context.distance;
+
+        if (start == end) {
+            return 1;
+        }
+        context.markVisited(start);
+        depth[start] = 0;
+        depthIteration[start] = limit;
+        if (limit == 0) {
+            return graph.offsets[start] == graph.offsets[start + 1] ? -1 : 0;
+        }
+        context.expanded++;
+        context.countPush(1);
+        cursor[0] = graph.offsets[start];
+        int level = 0;
+        boolean cutoff = false;
+
+        while (level >= 0) {
+            int current = path[level];
+            if (cursor[level] == graph.offsets[current + 1]) {
+                context.countPop();
+                level--; // Every neighbor tried
+                continue;
+            }
+
+            int e = cursor[level]++;
+            context.countRelaxed();
+            int neighbor = graph.targets[e];
+            int neighborDepth = level + 1;
+            if (neighbor == end) {
+                path[neighborDepth] = neighbor;
+                distance[neighbor] = distance[current] + graph.weights[e];
+                return neighborDepth + 1; // Path found
+            }
+            if (context.isVisited(neighbor) && (neighborDepth > depth[neighbor]
+                    || neighborDepth == depth[neighbor] && depthIteration[neighbor] == limit)) {
+                continue; // Already reached at least as shallow, so nothing new lies beyond it
+            }
+
+            context.markVisited(neighbor);
+            depth[neighbor] = neighborDepth;
+            depthIteration[neighbor] = limit;
+            path[neighborDepth] = neighbor;
+            distance[neighbor] = distance[current] + graph.weights[e];
+            if (neighborDepth == limit) {
+                cutoff = true; // Reached the depth limit
+                continue;
+            }
+
+            level = neighborDepth;
+            context.expanded++;
+            context.countPush(level + 1);
+            cursor[level] = graph.offsets[neighbor];
+        }
+        return cutoff ? 0 : -1;
+    }
+}
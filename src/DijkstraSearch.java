@@ -0,0 +1,105 @@
+// Dijkstra's algorithm for the lightest path between two cities, over three priority
+// queues. The indexed heap takes any non-negative weights. Dial's buckets and the radix
+// heap need whole-number weights and replace the comparisons of a heap with bucket
+// lookups; the buckets suit small weights, such as road lengths in kilometers, and the
+// radix heap any size of integer weight.
+//
+// Each search writes the path into context.path and returns its length, or 0 if the
+// cities are not connected; the path distance is left in context.distance[end].
+public class DijkstraSearch {
+    // One of the searches below, so callers can pick the queue
+    public interface Engine {
+        int search(CompactGraph graph, int start, int end, SearchContext context);
+    }
+
+    private DijkstraSearch() {
+    }
+
+    public static int heapSearch(CompactGraph graph, int start, int end, SearchContext context) {
+        IndexedMinHeap priorityQueue = context.heap;
+        priorityQueue.push(start, 0);
+        context.visit(start, -1, 0);
+
+        while (!priorityQueue.isEmpty()) {
+            int currentCity = priorityQueue.pop();
+            if (currentCity == end) {
+                return context.buildPath(end);
+            }
+            context.expand(graph.offsets, currentCity);
+
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                double cost = context.distance[currentCity] + graph.weights[e];
+                if (!context.isVisited(neighbor) || cost < context.distance[neighbor]) {
+                    context.visit(neighbor, currentCity, cost);
+                    priorityQueue.pushOrDecrease(neighbor, cost);
+                }
+            }
+        }
+        return 0;
+    }
+
+    // Throws IllegalStateException if the graph has a weight that is not a whole number,
+    // or one of BucketQueue.MAX_BUCKETS or more.
+    public static int dialSearch(CompactGraph graph, int start, int end, SearchContext context) {
+        requireIntegerWeights(graph);
+        if (graph.maxWeight() >= BucketQueue.MAX_BUCKETS) {
+            throw new IllegalStateException("Edge weights up to " + graph.maxWeight() + " need too many buckets; use the radix heap");
+        }
+        BucketQueue priorityQueue = context.buckets;
+        priorityQueue.clear(graph.nodeCount(), (long) graph.maxWeight());
+        priorityQueue.push(start, 0);
+        context.visit(start, -1, 0);
+
+        while (!priorityQueue.isEmpty()) {
+            int currentCity = priorityQueue.pop();
+            if (currentCity == end) {
+                return context.buildPath(end);
+            }
+            context.expand(graph.offsets, currentCity);
+
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                double cost = context.distance[currentCity] + graph.weights[e];
+                if (!context.isVisited(neighbor) || cost < context.distance[neighbor]) {
+                    context.visit(neighbor, currentCity, cost);
+                    priorityQueue.pushOrDecrease(neighbor, (long) cost);
+                }
+            }
+        }
+        return 0;
+    }
+
+    // Throws IllegalStateException if the graph has a weight that is not a whole number.
+    public static int radixHeapSearch(CompactGraph graph, int start, int end, SearchContext context) {
+        requireIntegerWeights(graph);
+        RadixHeap priorityQueue = context.radixHeap;
+        priorityQueue.clear(graph.nodeCount());
+        priorityQueue.push(start, 0);
+        context.visit(start, -1, 0);
+
+        while (!priorityQueue.isEmpty()) {
+            int currentCity = priorityQueue.pop();
+            if (currentCity == end) {
+                return context.buildPath(end);
+            }
+            context.expand(graph.offsets, currentCity);
+
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                double cost = context.distance[currentCity] + graph.weights[e];
+                if (!context.isVisited(neighbor) || cost < context.distance[neighbor]) {
+                    context.visit(neighbor, currentCity, cost);
+                    priorityQueue.pushOrDecrease(neighbor, (long) cost);
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static void requireIntegerWeights(CompactGraph graph) {
+        if (!graph.hasIntegerWeights()) {
+            throw new IllegalStateException("The graph has edge weights that are not whole numbers; use the heap search");
+        }
+    }
+}
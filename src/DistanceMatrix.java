@@ -0,0 +1,76 @@
+import java.util.Arrays;
+import java.util.List;
+
+// Shortest distances, and optionally paths, from each of a list of sources to each of a
+// list of targets, as computed by ManyToManySearch. Row i belongs to source i and column
+// j to target j; unknown or unreachable pairs have an infinite distance and no path.
+public class DistanceMatrix {
+    private static final int[] NO_PATH = new int[0];
+
+    private final CompactGraph graph;
+    private final int sourceCount;
+    private final int targetCount;
+    private final double[] distances; // distances[i * targetCount + j]
+    private final int[][] paths; // Same layout, or null if paths were not requested
+    private final long nodesExpanded;
+    private final long elapsedNanos;
+
+    DistanceMatrix(CompactGraph graph, int sourceCount, int targetCount, double[] distances, int[][] paths, long nodesExpanded, long elapsedNanos) {
+        this.graph = graph;
+        this.sourceCount = sourceCount;
+        this.targetCount = targetCount;
+        this.distances = distances;
+        this.paths = paths;
+        this.nodesExpanded = nodesExpanded;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int sourceCount() {
+        return sourceCount;
+    }
+
+    public int targetCount() {
+        return targetCount;
+    }
+
+    public double distance(int source, int target) {
+        return distances[source * targetCount + target];
+    }
+
+    public boolean hasPaths() {
+        return paths != null;
+    }
+
+    // Node ids from source to target, or an empty array if there is no path. Throws
+    // IllegalStateException if the matrix was computed without paths.
+    public int[] path(int source, int target) {
+        if (paths == null) {
+            throw new IllegalStateException("The matrix was computed without paths");
+        }
+        int[] path = paths[source * targetCount + target];
+        return path == null ? NO_PATH : path.clone();
+    }
+
+    public List<String> pathNames(int source, int target) {
+        int[] path = path(source, target);
+        return graph.names(path, path.length);
+    }
+
+    // Number of nodes whose neighbors the searches scanned, over all sources.
+    public long nodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sourceCount; i++) {
+            text.append(Arrays.toString(Arrays.copyOfRange(distances, i * targetCount, (i + 1) * targetCount))).append('\n');
+        }
+        return text.toString();
+    }
+}
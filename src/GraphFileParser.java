@@ -0,0 +1,288 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Streaming parser for the edge list (Adjacencies.txt: "cityA cityB" per line, with an
+// optional road length as a third column) and the coordinate list (coordinates.csv: "name,latitude,longitude" per line). The file is
+// read through one reused byte buffer and tokenized in place; city names are interned
+// into the builder's node dictionary straight from the bytes, so a String is only
+// created the first time a city is seen. Malformed lines are reported on System.err
+// with their line number and skipped.
+public class GraphFileParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L
+    };
+
+    // Receives each well-formed line of an edge list, with cities as builder ids. Lines
+    // without a weight column have weight 1.
+    public interface EdgeVisitor {
+        void edge(int city1, int city2, double weight);
+    }
+
+    // Receives each well-formed line of a coordinate list, with the city as a builder id
+    public interface CityVisitor {
+        void city(int city, double latitude, double longitude);
+    }
+
+    private final CompactGraph.Builder builder;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int errorCount;
+
+    // Open-addressing table from name bytes to node id; slots hold id + 1, 0 is empty
+    private int[] slots = new int[64];
+    private byte[][] nameBytes = new byte[16][];
+    private int[] nameHashes = new int[16];
+    private int nameCount;
+
+    // Token boundaries of the current line
+    private final int[] tokenStart = new int[4];
+    private final int[] tokenEnd = new int[4];
+
+    private String fileName;
+    private int lineNumber;
+
+    public GraphFileParser(CompactGraph.Builder builder) {
+        this.builder = builder;
+    }
+
+    // Number of malformed lines reported so far
+    public int errorCount() {
+        return errorCount;
+    }
+
+    public void parseEdges(String fileName, EdgeVisitor visitor) throws IOException {
+        parse(fileName, false, visitor, null);
+    }
+
+    public void parseCoordinates(String fileName, CityVisitor visitor) throws IOException {
+        parse(fileName, true, null, visitor);
+    }
+
+    private void parse(String fileName, boolean coordinates, EdgeVisitor edges, CityVisitor cities) throws IOException {
+        this.fileName = fileName;
+        this.lineNumber = 0;
+        try (InputStream in = new FileInputStream(fileName)) {
+            int length = 0;
+            boolean endOfFile = false;
+            while (!endOfFile || length > 0) {
+                if (!endOfFile && length < buffer.length) {
+                    int read = in.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        endOfFile = true;
+                    } else {
+                        length += read;
+                    }
+                }
+
+                // Hand every complete line in the buffer to the tokenizer
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer[i] == '\n') {
+                        parseLine(lineStart, i, coordinates, edges, cities);
+                        lineStart = i + 1;
+                    }
+                }
+                if (endOfFile && lineStart < length) {
+                    parseLine(lineStart, length, coordinates, edges, cities); // Last line without a newline
+                    lineStart = length;
+                }
+
+                // Keep the partial last line at the front of the buffer, growing it for very long lines
+                length -= lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, length);
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+        }
+    }
+
+    private void parseLine(int start, int end, boolean coordinates, EdgeVisitor edges, CityVisitor cities) {
+        lineNumber++;
+        if (coordinates) {
+            int count = split(start, end, (byte) ',', true);
+            if (count == 0) {
+                return; // Blank line
+            }
+            if (count != 3) {
+                report(start, end, "expected name,latitude,longitude");
+                return;
+            }
+            double latitude = parseDouble(tokenStart[1], tokenEnd[1]);
+            double longitude = parseDouble(tokenStart[2], tokenEnd[2]);
+            if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+                report(start, end, "invalid coordinate");
+                return;
+            }
+            if (!(Math.abs(latitude) <= 90) || !(Math.abs(longitude) <= 180)) {
+                report(start, end, "coordinate out of range");
+                return;
+            }
+            cities.city(intern(tokenStart[0], tokenEnd[0]), latitude, longitude);
+        } else {
+            int count = split(start, end, (byte) ' ', false);
+            if (count == 0) {
+                return; // Blank line
+            }
+            if (count != 2 && count != 3) {
+                report(start, end, "expected two city names and an optional weight");
+                return;
+            }
+            double weight = 1;
+            if (count == 3) {
+                weight = parseDouble(tokenStart[2], tokenEnd[2]);
+                if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY) {
+                    report(start, end, "invalid weight");
+                    return;
+                }
+            }
+            edges.edge(intern(tokenStart[0], tokenEnd[0]), intern(tokenStart[1], tokenEnd[1]), weight);
+        }
+    }
+
+    // Splits buffer[start .. end) into trimmed tokens. With a comma separator every field
+    // counts, even an empty one; otherwise runs of whitespace separate the tokens. Returns
+    // the number of tokens, or tokenStart.length if there are too many.
+    private int split(int start, int end, byte separator, boolean keepEmpty) {
+        int count = 0;
+        int i = start;
+        while (true) {
+            while (i < end && isSpace(buffer[i])) {
+                i++;
+            }
+            if (i == end && (!keepEmpty || count == 0)) {
+                return count;
+            }
+            int tokenBegin = i;
+            while (i < end && buffer[i] != separator && !(separator == ' ' && isSpace(buffer[i]))) {
+                i++;
+            }
+            int tokenFinish = i;
+            while (tokenFinish > tokenBegin && isSpace(buffer[tokenFinish - 1])) {
+                tokenFinish--;
+            }
+            if (count == tokenStart.length) {
+                return count;
+            }
+            tokenStart[count] = tokenBegin;
+            tokenEnd[count] = tokenFinish;
+            count++;
+            if (i == end) {
+                return count;
+            }
+            i++; // Skip the separator
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    // Returns the builder id of the name in buffer[start .. end), adding it on first sight.
+    private int intern(int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int mask = slots.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (nameHashes[id] == hash && Arrays.equals(nameBytes[id], 0, nameBytes[id].length, buffer, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] bytes = Arrays.copyOfRange(buffer, start, end);
+        int id = builder.addNode(new String(bytes, StandardCharsets.UTF_8));
+        if (id != nameCount) {
+            throw new IllegalStateException("Builder already holds nodes not added by this parser");
+        }
+        if (nameCount == nameBytes.length) {
+            nameBytes = Arrays.copyOf(nameBytes, nameCount * 2);
+            nameHashes = Arrays.copyOf(nameHashes, nameCount * 2);
+        }
+        nameBytes[id] = bytes;
+        nameHashes[id] = hash;
+        nameCount++;
+        slots[slot] = id + 1;
+        if (nameCount * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < nameCount; id++) {
+            int hash = nameHashes[id];
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    // Parses a decimal number such as -97.2666667 without allocating. Numbers with up to
+    // 15 significant digits and no exponent are exact: the digits and the power of ten
+    // are both representable, so the single division rounds correctly. Anything else
+    // falls back to Double.parseDouble. Returns NaN if the text is not a number.
+    private double parseDouble(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                if (digitCount > 0 || b != '0') {
+                    digitCount++;
+                }
+                digits = digits * 10 + (b - '0');
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+                if (digitCount > 15) {
+                    return parseDoubleSlowly(start, end);
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return parseDoubleSlowly(start, end);
+            }
+        }
+        int firstDigit = (start < end && (buffer[start] == '-' || buffer[start] == '+')) ? start + 1 : start;
+        if (end - firstDigit == (seenPoint ? 1 : 0) || fractionDigits >= POWERS_OF_TEN.length) {
+            return parseDoubleSlowly(start, end);
+        }
+        double value = (double) digits / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlowly(int start, int end) {
+        try {
+            return Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private void report(int start, int end, String message) {
+        errorCount++;
+        String line = new String(buffer, start, end - start, StandardCharsets.UTF_8).trim();
+        System.err.println(fileName + ":" + lineNumber + ": " + message + ": \"" + line + "\"");
+    }
+}
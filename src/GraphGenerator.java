@@ -0,0 +1,331 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+// Seeded generator of synthetic graphs in the two data file formats, for load and
+// scaling tests: an edge list like Adjacencies.txt and, for topologies with a
+// geometry, a coordinate list like coordinates.csv. Nodes are named N0, N1, ... and
+// the same topology, size and seed always produce the same files.
+//
+// Topologies:
+//   grid       road-like square lattice; every point is moved by up to jitter times
+//              the lattice spacing, and edges join lattice neighbors
+//   geometric  points spread uniformly over the bounding box, joined when they are
+//              closer than the radius that gives each point meanDegree neighbors
+//   chain      a single path through points along a line of latitude, deep enough to
+//              stress recursive searches
+//   scale-free Barabasi-Albert preferential attachment, edge list only
+//
+// Usage: java GraphGenerator <grid|geometric|chain|scale-free> <nodes> <edgeFile> [coordinateFile]
+//                            [--seed 42] [--jitter 0.3] [--degree 8] [--links 2] [--weighted false]
+//
+// With --weighted true, each edge line also gets the road length in whole kilometers.
+public class GraphGenerator {
+    // Bounding box of the generated coordinates, in degrees
+    private static final double MIN_LATITUDE = 37.0;
+    private static final double MAX_LATITUDE = 40.0;
+    private static final double MIN_LONGITUDE = -102.0;
+    private static final double MAX_LONGITUDE = -95.0;
+    private static final double EARTH_RADIUS = 6371; // Earth's radius in kilometers
+
+    private final int nodeCount;
+    private double[] latitudes;  // Degrees, or null
+    private double[] longitudes; // Degrees, or null
+    private double distanceThreshold; // Kilometers
+    private int[] sources = new int[16];
+    private int[] targets = new int[16];
+    private int edgeCount;
+
+    private GraphGenerator(int nodeCount) {
+        if (nodeCount < 1) {
+            throw new IllegalArgumentException("A graph needs at least one node");
+        }
+        this.nodeCount = nodeCount;
+    }
+
+    // Square lattice of nodeCount points whose positions are moved by up to jitter times
+    // the spacing in each direction. Jitter below 0.5 keeps the embedding planar.
+    public static GraphGenerator grid(int nodeCount, double jitter, long seed) {
+        GraphGenerator generator = new GraphGenerator(nodeCount);
+        Random random = new Random(seed);
+        int side = (int) Math.ceil(Math.sqrt(nodeCount));
+        double spacing = Math.toRadians(MAX_LATITUDE - MIN_LATITUDE) * EARTH_RADIUS / side;
+        double latitudeStep = Math.toDegrees(spacing / EARTH_RADIUS);
+        double longitudeStep = latitudeStep / Math.cos(Math.toRadians((MIN_LATITUDE + MAX_LATITUDE) / 2));
+
+        generator.allocateCoordinates();
+        for (int i = 0; i < nodeCount; i++) {
+            double row = i / side + jitter * (2 * random.nextDouble() - 1);
+            double column = i % side + jitter * (2 * random.nextDouble() - 1);
+            generator.latitudes[i] = MIN_LATITUDE + row * latitudeStep;
+            generator.longitudes[i] = MIN_LONGITUDE + column * longitudeStep;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            if (i % side + 1 < side && i + 1 < nodeCount) {
+                generator.addEdge(i, i + 1);
+            }
+            if (i + side < nodeCount) {
+                generator.addEdge(i, i + side);
+            }
+        }
+        // Jittered lattice neighbors are at most this far apart; the extra 5% covers the
+        // longitude spacing, which is exact only at the middle latitude
+        generator.distanceThreshold = spacing * Math.hypot(1 + 2 * jitter, 2 * jitter) * 1.05;
+        return generator;
+    }
+
+    // nodeCount points spread uniformly over the bounding box, joined when at most the
+    // radius apart that gives each point meanDegree neighbors on average.
+    public static GraphGenerator geometric(int nodeCount, double meanDegree, long seed) {
+        GraphGenerator generator = new GraphGenerator(nodeCount);
+        Random random = new Random(seed);
+        generator.allocateCoordinates();
+        for (int i = 0; i < nodeCount; i++) {
+            generator.latitudes[i] = MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
+            generator.longitudes[i] = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
+        }
+
+        double height = Math.toRadians(MAX_LATITUDE - MIN_LATITUDE) * EARTH_RADIUS;
+        double width = Math.toRadians(MAX_LONGITUDE - MIN_LONGITUDE) * EARTH_RADIUS
+                * Math.cos(Math.toRadians((MIN_LATITUDE + MAX_LATITUDE) / 2));
+        double radius = Math.sqrt(meanDegree * width * height / (Math.PI * nodeCount));
+        generator.distanceThreshold = radius;
+
+        double[] latitudeRadians = new double[nodeCount];
+        double[] longitudeRadians = new double[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            latitudeRadians[i] = Math.toRadians(generator.latitudes[i]);
+            longitudeRadians[i] = Math.toRadians(generator.longitudes[i]);
+        }
+        SpatialGrid grid = new SpatialGrid(latitudeRadians, longitudeRadians, radius, EARTH_RADIUS);
+        SpatialGrid.Distance distance = (a, b) -> haversine(latitudeRadians[a], longitudeRadians[a], latitudeRadians[b], longitudeRadians[b]);
+        int[] neighbors = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            int count = grid.neighborsWithin(i, radius, distance, neighbors);
+            for (int k = 0; k < count; k++) {
+                if (neighbors[k] > i) {
+                    generator.addEdge(i, neighbors[k]);
+                }
+            }
+        }
+        return generator;
+    }
+
+    // A path N0 - N1 - ... through evenly spaced points along the middle line of
+    // latitude of the bounding box. The seed only varies the starting longitude.
+    public static GraphGenerator chain(int nodeCount, long seed) {
+        GraphGenerator generator = new GraphGenerator(nodeCount);
+        Random random = new Random(seed);
+        double latitude = (MIN_LATITUDE + MAX_LATITUDE) / 2;
+        double step = (MAX_LONGITUDE - MIN_LONGITUDE) / 2 / nodeCount;
+        double first = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE) / 2;
+
+        generator.allocateCoordinates();
+        for (int i = 0; i < nodeCount; i++) {
+            generator.latitudes[i] = latitude;
+            generator.longitudes[i] = first + i * step;
+        }
+        for (int i = 0; i + 1 < nodeCount; i++) {
+            generator.addEdge(i, i + 1);
+        }
+        double spacing = Math.toRadians(step) * Math.cos(Math.toRadians(latitude)) * EARTH_RADIUS;
+        generator.distanceThreshold = spacing * 1.5;
+        return generator;
+    }
+
+    // Barabasi-Albert preferential attachment: each new node links to edgesPerNode
+    // distinct earlier nodes chosen with probability proportional to their degree.
+    public static GraphGenerator scaleFree(int nodeCount, int edgesPerNode, long seed) {
+        GraphGenerator generator = new GraphGenerator(nodeCount);
+        Random random = new Random(seed);
+        int[] endpoints = new int[2 * nodeCount * edgesPerNode]; // Every node appears once per incident edge
+        int endpointCount = 0;
+        int[] chosen = new int[edgesPerNode];
+        for (int node = 1; node < nodeCount; node++) {
+            int links = Math.min(edgesPerNode, node);
+            for (int k = 0; k < links; k++) {
+                if (node <= edgesPerNode) {
+                    chosen[k] = k; // The first nodes link to every earlier node
+                    continue;
+                }
+                int target;
+                boolean repeated;
+                do {
+                    target = endpoints[random.nextInt(endpointCount)];
+                    repeated = false;
+                    for (int j = 0; j < k; j++) {
+                        repeated |= chosen[j] == target;
+                    }
+                } while (repeated);
+                chosen[k] = target;
+            }
+            for (int k = 0; k < links; k++) {
+                generator.addEdge(node, chosen[k]);
+                endpoints[endpointCount++] = node;
+                endpoints[endpointCount++] = chosen[k];
+            }
+        }
+        return generator;
+    }
+
+    public static String nodeName(int node) {
+        return "N" + node;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public boolean hasCoordinates() {
+        return latitudes != null;
+    }
+
+    // Threshold in kilometers at which CoordinateCity links at least the pairs joined in
+    // the edge list. Geometric graphs and chains get exactly their edges; a grid also
+    // gains some diagonal links.
+    public double distanceThreshold() {
+        if (!hasCoordinates()) {
+            throw new IllegalStateException("This topology has no coordinates");
+        }
+        return distanceThreshold;
+    }
+
+    // Writes one "cityA cityB" line per edge, as in Adjacencies.txt
+    public void writeEdges(String fileName) throws IOException {
+        writeEdges(fileName, false);
+    }
+
+    // Writes the edge list, with the great-circle length of each edge rounded to whole
+    // kilometers, but at least 1, as a third column if weighted is set.
+    public void writeEdges(String fileName, boolean weighted) throws IOException {
+        if (weighted && !hasCoordinates()) {
+            throw new IllegalStateException("This topology has no coordinates to weight its edges");
+        }
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(fileName), 1 << 16)) {
+            for (int e = 0; e < edgeCount; e++) {
+                out.write(nodeName(sources[e]));
+                out.write(' ');
+                out.write(nodeName(targets[e]));
+                if (weighted) {
+                    out.write(' ');
+                    out.write(String.valueOf(Math.max(1, Math.round(edgeLength(sources[e], targets[e])))));
+                }
+                out.newLine();
+            }
+        }
+    }
+
+    // Writes one "name,latitude,longitude" line per node, as in coordinates.csv
+    public void writeCoordinates(String fileName) throws IOException {
+        if (!hasCoordinates()) {
+            throw new IllegalStateException("This topology has no coordinates");
+        }
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(fileName), 1 << 16)) {
+            for (int i = 0; i < nodeCount; i++) {
+                out.write(nodeName(i) + "," + latitudes[i] + "," + longitudes[i]);
+                out.newLine();
+            }
+        }
+    }
+
+    private void allocateCoordinates() {
+        latitudes = new double[nodeCount];
+        longitudes = new double[nodeCount];
+    }
+
+    private void addEdge(int source, int target) {
+        if (edgeCount == sources.length) {
+            sources = Arrays.copyOf(sources, edgeCount * 2);
+            targets = Arrays.copyOf(targets, edgeCount * 2);
+        }
+        sources[edgeCount] = source;
+        targets[edgeCount] = target;
+        edgeCount++;
+    }
+
+    private double edgeLength(int source, int target) {
+        return haversine(Math.toRadians(latitudes[source]), Math.toRadians(longitudes[source]),
+                Math.toRadians(latitudes[target]), Math.toRadians(longitudes[target]));
+    }
+
+    private static double haversine(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinHalfLat = Math.sin((latitude2 - latitude1) / 2);
+        double sinHalfLon = Math.sin((longitude2 - longitude1) / 2);
+        double a = sinHalfLat * sinHalfLat + Math.cos(latitude1) * Math.cos(latitude2) * sinHalfLon * sinHalfLon;
+        return EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: java GraphGenerator <grid|geometric|chain|scale-free> <nodes> <edgeFile> [coordinateFile]"
+                    + " [--seed 42] [--jitter 0.3] [--degree 8] [--links 2] [--weighted false]");
+            System.exit(1);
+        }
+        String topology = args[0];
+        int nodeCount = Integer.parseInt(args[1]);
+        String edgeFile = args[2];
+        String coordinateFile = args.length > 3 && !args[3].startsWith("--") ? args[3] : null;
+        long seed = 42;
+        double jitter = 0.3;
+        double meanDegree = 8;
+        int links = 2;
+        boolean weighted = false;
+        for (int i = coordinateFile != null ? 4 : 3; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--jitter":
+                    jitter = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--degree":
+                    meanDegree = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--links":
+                    links = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--weighted":
+                    weighted = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        GraphGenerator generator;
+        switch (topology) {
+            case "grid":
+                generator = grid(nodeCount, jitter, seed);
+                break;
+            case "geometric":
+                generator = geometric(nodeCount, meanDegree, seed);
+                break;
+            case "chain":
+                generator = chain(nodeCount, seed);
+                break;
+            case "scale-free":
+                generator = scaleFree(nodeCount, links, seed);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown topology " + topology);
+        }
+
+        if ((coordinateFile != null || weighted) && !generator.hasCoordinates()) {
+            System.err.println("The " + topology + " topology has no coordinates to write");
+            System.exit(1);
+        }
+        generator.writeEdges(edgeFile, weighted);
+        System.out.println("Wrote " + generator.edgeCount() + " edges between " + nodeCount + " nodes to " + edgeFile);
+        if (coordinateFile != null) {
+            generator.writeCoordinates(coordinateFile);
+            System.out.println("Wrote " + nodeCount + " coordinates to " + coordinateFile
+                    + " (distance threshold " + generator.distanceThreshold() + " km)");
+        }
+    }
+}
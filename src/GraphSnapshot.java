@@ -0,0 +1,226 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Versioned binary image of a CompactGraph and, optionally, the coordinates of its
+// cities, so a restarted process can skip parsing the text files and rebuilding the
+// adjacency. The file is memory-mapped on load and each section is bulk-copied
+// straight into the arrays the searches index.
+//
+// The header records a source key, a hash of the text file and the parameters the
+// graph was built with (see sourceKey), so a snapshot is only reused for the same input
+// and settings, whatever the file times say.
+//
+// Layout (little-endian, sections aligned to 8 bytes):
+//   int magic, int version, int nodeCount, int edgeCount, int flags, int nameBytes,
+//   long sourceKey
+//   int[nodeCount + 1] name offsets, byte[nameBytes] UTF-8 names
+//   int[nodeCount + 1] offsets, int[edgeCount] targets, double[edgeCount] weights
+//   double[nodeCount] latitudes, double[nodeCount] longitudes (if HAS_COORDINATES)
+public class GraphSnapshot {
+    private static final int MAGIC = 0x4347534E; // "CGSN"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int HAS_COORDINATES = 1;
+
+    final CompactGraph graph;
+    final double[] latitudes;  // Degrees, or null
+    final double[] longitudes; // Degrees, or null
+
+    GraphSnapshot(CompactGraph graph, double[] latitudes, double[] longitudes) {
+        this.graph = graph;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+    }
+
+    public boolean hasCoordinates() {
+        return latitudes != null;
+    }
+
+    // Writes the graph, and the coordinates in degrees if they are not null, to fileName,
+    // marked with the sourceKey of the file and parameters it was built from.
+    public static void write(String fileName, CompactGraph graph, double[] latitudes, double[] longitudes, long sourceKey)
+            throws IOException {
+        int nodeCount = graph.nodeCount();
+        int edgeCount = graph.edgeCount();
+        boolean hasCoordinates = latitudes != null;
+
+        int[] nameOffsets = new int[nodeCount + 1];
+        byte[][] names = new byte[nodeCount][];
+        for (int i = 0; i < nodeCount; i++) {
+            names[i] = graph.names[i].getBytes(StandardCharsets.UTF_8);
+            nameOffsets[i + 1] = nameOffsets[i] + names[i].length;
+        }
+        int nameBytes = nameOffsets[nodeCount];
+
+        long size = align(HEADER_BYTES + 4L * (nodeCount + 1) + nameBytes)
+                + align(4L * (nodeCount + 1) + 4L * edgeCount)
+                + 8L * edgeCount
+                + (hasCoordinates ? 16L * nodeCount : 0);
+
+        File file = new File(fileName);
+        file.delete(); // A stale larger file would otherwise keep its tail
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw");
+             FileChannel channel = out.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(edgeCount)
+                    .putInt(hasCoordinates ? HAS_COORDINATES : 0).putInt(nameBytes).putLong(sourceKey);
+            buffer.asIntBuffer().put(nameOffsets);
+            buffer.position(buffer.position() + 4 * (nodeCount + 1));
+            for (byte[] name : names) {
+                buffer.put(name);
+            }
+            pad(buffer);
+            buffer.asIntBuffer().put(graph.offsets).put(graph.targets);
+            buffer.position(buffer.position() + 4 * (nodeCount + 1 + edgeCount));
+            pad(buffer);
+            buffer.asDoubleBuffer().put(graph.weights);
+            buffer.position(buffer.position() + 8 * edgeCount);
+            if (hasCoordinates) {
+                buffer.asDoubleBuffer().put(latitudes).put(longitudes);
+            }
+            buffer.force();
+        }
+    }
+
+    // Maps fileName and reads the graph and coordinates back. The adjacency is checked, so
+    // a damaged file fails here rather than inside a search.
+    public static GraphSnapshot read(String fileName) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(fileName, "r");
+             FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException(fileName + " is not a graph snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(fileName + " has unsupported snapshot version " + version);
+            }
+            int nodeCount = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            boolean hasCoordinates = (buffer.getInt() & HAS_COORDINATES) != 0;
+            int nameBytes = buffer.getInt();
+            buffer.getLong(); // The source key, compared by isCurrent
+
+            int[] nameOffsets = new int[nodeCount + 1];
+            buffer.asIntBuffer().get(nameOffsets);
+            buffer.position(buffer.position() + 4 * (nodeCount + 1));
+            byte[] nameData = new byte[nameBytes];
+            buffer.get(nameData);
+            String[] names = new String[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                names[i] = new String(nameData, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i], StandardCharsets.UTF_8);
+            }
+            pad(buffer);
+
+            int[] offsets = new int[nodeCount + 1];
+            int[] targets = new int[edgeCount];
+            double[] weights = new double[edgeCount];
+            buffer.asIntBuffer().get(offsets).get(targets);
+            buffer.position(buffer.position() + 4 * (nodeCount + 1 + edgeCount));
+            pad(buffer);
+            buffer.asDoubleBuffer().get(weights);
+            buffer.position(buffer.position() + 8 * edgeCount);
+            if (!isValidAdjacency(offsets, targets, weights)) {
+                throw new IOException(fileName + " is not a valid graph snapshot");
+            }
+
+            double[] latitudes = null;
+            double[] longitudes = null;
+            if (hasCoordinates) {
+                latitudes = new double[nodeCount];
+                longitudes = new double[nodeCount];
+                buffer.asDoubleBuffer().get(latitudes).get(longitudes);
+            }
+            return new GraphSnapshot(new CompactGraph(names, offsets, targets, weights), latitudes, longitudes);
+        } catch (RuntimeException e) {
+            // A truncated file shows up as a buffer underflow
+            throw new IOException(fileName + " is not a valid graph snapshot", e);
+        }
+    }
+
+    // Offsets start at 0, never decrease and end at the edge count, every target is a
+    // node, and every weight is finite and not negative, as the parser requires.
+    private static boolean isValidAdjacency(int[] offsets, int[] targets, double[] weights) {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != targets.length) {
+            return false;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                return false;
+            }
+        }
+        int nodeCount = offsets.length - 1;
+        for (int target : targets) {
+            if (target < 0 || target >= nodeCount) {
+                return false;
+            }
+        }
+        for (double weight : weights) {
+            if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Hash of the contents of sourceFile and the parameters a graph is built from it with,
+    // such as the distance threshold of a CoordinateCity.
+    public static long sourceKey(String sourceFile, double... parameters) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (InputStream in = new FileInputStream(sourceFile)) {
+            byte[] buffer = new byte[1 << 16];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        ByteBuffer parameterBytes = ByteBuffer.allocate(8 * parameters.length);
+        for (double parameter : parameters) {
+            parameterBytes.putDouble(parameter);
+        }
+        digest.update(parameterBytes.array());
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    // Returns true if the snapshot exists, is readable and was written with sourceKey.
+    public static boolean isCurrent(String snapshotFile, long sourceKey) {
+        if (!new File(snapshotFile).isFile()) {
+            return false;
+        }
+        try (RandomAccessFile in = new RandomAccessFile(snapshotFile, "r")) {
+            if (in.length() < HEADER_BYTES) {
+                return false;
+            }
+            byte[] header = new byte[HEADER_BYTES];
+            in.readFully(header);
+            ByteBuffer buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+            return buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && buffer.getLong(HEADER_BYTES - 8) == sourceKey;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static void pad(ByteBuffer buffer) {
+        buffer.position((int) align(buffer.position()));
+    }
+}
@@ -0,0 +1,290 @@
+import java.util.*;
+
+// A set of changes to a road network: cities added or removed, roads opened, closed or
+// given a new length. Roads are undirected, so a change applies to both directions.
+// The changes are collected here and applied all at once by CityGraph.withUpdate or
+// CoordinateCity.withUpdate, which leave the graph they are called on untouched and
+// return a new one. When the same city or road is changed more than once, the last
+// change wins.
+//
+// Applying an update copies the adjacency arrays with the changes made, which is linear
+// in the size of the graph but needs no parsing, no neighbor search and no contraction.
+// The graph a query started on stays intact, so it finishes on a consistent version.
+public class GraphUpdate {
+    private static final double[] NO_COORDINATES = new double[0];
+    private static final double[] REMOVED = new double[0];
+
+    // Length of a road whose graph picks the length itself: 1 in CityGraph, the
+    // great-circle distance in CoordinateCity
+    static final double DEFAULT_LENGTH = Double.NaN;
+
+    // Added cities map to {latitude, longitude} or NO_COORDINATES, removed ones to REMOVED
+    private final Map<String, double[]> cities = new LinkedHashMap<>();
+    // Opened or re-weighted roads map to their length, closed ones to null
+    private final Map<Road, Double> roads = new LinkedHashMap<>();
+
+    // Supplies the length of a road added without one, by the names of its cities
+    interface RoadLength {
+        double length(String city1, String city2);
+    }
+
+    private static final class Road {
+        final String city1; // The lexicographically smaller name
+        final String city2;
+
+        Road(String city1, String city2) {
+            if (city1.compareTo(city2) <= 0) {
+                this.city1 = city1;
+                this.city2 = city2;
+            } else {
+                this.city1 = city2;
+                this.city2 = city1;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Road)) {
+                return false;
+            }
+            Road road = (Road) other;
+            return city1.equals(road.city1) && city2.equals(road.city2);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * city1.hashCode() + city2.hashCode();
+        }
+    }
+
+    // Adds a city without coordinates, for CityGraph.
+    public GraphUpdate addCity(String name) {
+        cities.put(name, NO_COORDINATES);
+        return this;
+    }
+
+    // Adds a city at the given position in degrees, as CoordinateCity requires.
+    public GraphUpdate addCity(String name, double latitude, double longitude) {
+        cities.put(name, new double[]{latitude, longitude});
+        return this;
+    }
+
+    // Removes the city and every road to it.
+    public GraphUpdate removeCity(String name) {
+        cities.put(name, REMOVED);
+        return this;
+    }
+
+    // Opens a road of the graph's default length, replacing any road between the two cities.
+    public GraphUpdate addRoad(String city1, String city2) {
+        roads.put(new Road(city1, city2), DEFAULT_LENGTH);
+        return this;
+    }
+
+    // Opens a road of the given length, or changes the length of the road between the
+    // two cities. Throws IllegalArgumentException for a negative or infinite length.
+    public GraphUpdate addRoad(String city1, String city2, double length) {
+        if (!(length >= 0) || length == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Invalid road length " + length + " between " + city1 + " and " + city2);
+        }
+        roads.put(new Road(city1, city2), length);
+        return this;
+    }
+
+    // Closes every road between the two cities.
+    public GraphUpdate removeRoad(String city1, String city2) {
+        roads.put(new Road(city1, city2), null);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return cities.isEmpty() && roads.isEmpty();
+    }
+
+    // Position of a city added by this update, or null if it was added without one or not added.
+    double[] addedCoordinates(String name) {
+        double[] coordinates = cities.get(name);
+        return coordinates == null || coordinates.length == 0 ? null : coordinates;
+    }
+
+    // Whether the update can only make routes in graph longer: it closes roads, removes
+    // cities, adds cities without roads or lengthens existing roads, but opens no road
+    // and shortens none. Distances in graph are then lower bounds on those after it.
+    boolean onlyLengthens(CompactGraph graph) {
+        for (Map.Entry<Road, Double> road : roads.entrySet()) {
+            Double length = road.getValue();
+            if (length == null) {
+                continue;
+            }
+            int id1 = graph.id(road.getKey().city1);
+            int id2 = graph.id(road.getKey().city2);
+            if (Double.isNaN(length) || id1 < 0 || id2 < 0 || !(graph.edgeWeight(id1, id2) <= length)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Throws IllegalArgumentException with the given reason if a road is given a length
+    // below minimum's length for it.
+    void checkLengths(RoadLength minimum, String reason) {
+        for (Map.Entry<Road, Double> road : roads.entrySet()) {
+            Double length = road.getValue();
+            if (length != null && !Double.isNaN(length) && length < minimum.length(road.getKey().city1, road.getKey().city2)) {
+                throw new IllegalArgumentException("The road between " + road.getKey().city1 + " and "
+                        + road.getKey().city2 + " is " + reason + ": " + length);
+            }
+        }
+    }
+
+    // Builds the updated graph straight from the arrays of graph. Cities that remain keep
+    // their order and come first, then the added ones in the order they were added; the
+    // updated graph shares the name index of graph if no city was added or removed.
+    // Throws IllegalArgumentException if the update adds a city that exists, removes one
+    // that does not, closes a road that does not exist or touches a city that is not in
+    // the updated graph.
+    CompactGraph applyTo(CompactGraph graph, RoadLength defaultLength) {
+        int nodeCount = graph.nodeCount();
+
+        // Number the remaining cities in their old order, then the added ones
+        boolean[] removed = new boolean[nodeCount];
+        Map<String, Integer> addedIds = new HashMap<>();
+        for (Map.Entry<String, double[]> city : cities.entrySet()) {
+            int id = graph.id(city.getKey());
+            if (city.getValue() == REMOVED) {
+                if (id < 0) {
+                    throw new IllegalArgumentException("Cannot remove " + city.getKey() + ": no such city");
+                }
+                removed[id] = true;
+            } else if (id >= 0) {
+                throw new IllegalArgumentException("Cannot add " + city.getKey() + ": the city already exists");
+            }
+        }
+        int[] newId = new int[nodeCount];
+        int remaining = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            newId[node] = removed[node] ? -1 : remaining++;
+        }
+        String[] names = null; // Unchanged unless cities were added or removed
+        if (!cities.isEmpty()) {
+            List<String> updatedNames = new ArrayList<>(remaining + cities.size());
+            for (int node = 0; node < nodeCount; node++) {
+                if (!removed[node]) {
+                    updatedNames.add(graph.names[node]);
+                }
+            }
+            for (Map.Entry<String, double[]> city : cities.entrySet()) {
+                if (city.getValue() != REMOVED) {
+                    addedIds.put(city.getKey(), updatedNames.size());
+                    updatedNames.add(city.getKey());
+                }
+            }
+            names = updatedNames.toArray(new String[0]);
+        }
+        int updatedCount = names == null ? nodeCount : names.length;
+
+        // Resolve the changed roads to ids in the updated graph
+        int roadCount = roads.size();
+        int[] roadCity1 = new int[roadCount];
+        int[] roadCity2 = new int[roadCount];
+        double[] roadLength = new double[roadCount]; // NaN for a closed road
+        Set<Long> changed = new HashSet<>();
+        boolean[] touched = new boolean[updatedCount];
+        int r = 0;
+        for (Map.Entry<Road, Double> road : roads.entrySet()) {
+            String city1 = road.getKey().city1;
+            String city2 = road.getKey().city2;
+            int oldId1 = requireCity(graph, city1);
+            int oldId2 = requireCity(graph, city2);
+            if (road.getValue() == null && (oldId1 < 0 || oldId2 < 0 || graph.edgeWeight(oldId1, oldId2) == Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException("Cannot remove the road between " + city1 + " and " + city2 + ": no such road");
+            }
+            roadCity1[r] = oldId1 >= 0 ? newId[oldId1] : addedIds.get(city1);
+            roadCity2[r] = oldId2 >= 0 ? newId[oldId2] : addedIds.get(city2);
+            if (road.getValue() == null) {
+                roadLength[r] = Double.NaN;
+            } else {
+                roadLength[r] = Double.isNaN(road.getValue()) ? defaultLength.length(city1, city2) : road.getValue();
+            }
+            changed.add(pairKey(roadCity1[r], roadCity2[r]));
+            touched[roadCity1[r]] = true;
+            touched[roadCity2[r]] = true;
+            r++;
+        }
+
+        // Count the edges that remain and the opened ones, then copy them in the same order:
+        // the old edges of each city first, then its opened roads
+        int[] offsets = new int[updatedCount + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            if (!removed[node]) {
+                for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                    if (keepsEdge(graph.targets[e], newId[node], removed, newId, touched, changed)) {
+                        offsets[newId[node] + 1]++;
+                    }
+                }
+            }
+        }
+        for (r = 0; r < roadCount; r++) {
+            if (!Double.isNaN(roadLength[r])) {
+                offsets[roadCity1[r] + 1]++;
+                if (roadCity1[r] != roadCity2[r]) {
+                    offsets[roadCity2[r] + 1]++;
+                }
+            }
+        }
+        for (int node = 0; node < updatedCount; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+
+        int[] next = Arrays.copyOf(offsets, updatedCount);
+        int[] targets = new int[offsets[updatedCount]];
+        double[] weights = new double[targets.length];
+        for (int node = 0; node < nodeCount; node++) {
+            if (!removed[node]) {
+                for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+                    if (keepsEdge(graph.targets[e], newId[node], removed, newId, touched, changed)) {
+                        int slot = next[newId[node]]++;
+                        targets[slot] = newId[graph.targets[e]];
+                        weights[slot] = graph.weights[e];
+                    }
+                }
+            }
+        }
+        for (r = 0; r < roadCount; r++) {
+            if (!Double.isNaN(roadLength[r])) {
+                int slot = next[roadCity1[r]]++;
+                targets[slot] = roadCity2[r];
+                weights[slot] = roadLength[r];
+                if (roadCity1[r] != roadCity2[r]) {
+                    slot = next[roadCity2[r]]++;
+                    targets[slot] = roadCity1[r];
+                    weights[slot] = roadLength[r];
+                }
+            }
+        }
+        return names == null ? new CompactGraph(graph, offsets, targets, weights) : new CompactGraph(names, offsets, targets, weights);
+    }
+
+    // Whether an edge from the city with updated id source to the old city target survives
+    private static boolean keepsEdge(int target, int source, boolean[] removed, int[] newId, boolean[] touched, Set<Long> changed) {
+        if (removed[target]) {
+            return false;
+        }
+        int updatedTarget = newId[target];
+        return !(touched[source] && touched[updatedTarget] && changed.contains(pairKey(source, updatedTarget)));
+    }
+
+    private static long pairKey(int city1, int city2) {
+        return ((long) Math.min(city1, city2) << 32) | Math.max(city1, city2);
+    }
+
+    // Returns the city's id in graph, or -1 if the update adds it. Throws
+    // IllegalArgumentException if it is in neither graph or the update removes it.
+    private int requireCity(CompactGraph graph, String name) {
+        double[] change = cities.get(name);
+        if (change == REMOVED || (change == null && graph.id(name) < 0)) {
+            throw new IllegalArgumentException("Unknown city " + name);
+        }
+        return graph.id(name);
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Caches one heuristic vector per destination, holding the estimated distance from
+// every node to that destination. A vector is filled completely, one estimate per
+// node, before vectorFor first returns it and is never written afterwards, so searches
+// on many threads read it without locking. The least recently used destination is
+// evicted once more than capacity vectors are held, so repeated queries to the same
+// few destinations stop paying for the estimate.
+public class HeuristicCache {
+    // Computes the estimate from node to target for a vector not cached yet.
+    public interface Estimator {
+        double estimate(int node, int target);
+    }
+
+    private final int nodeCount;
+    private final Estimator estimator;
+    private final Map<Integer, double[]> vectors;
+
+    public HeuristicCache(int nodeCount, int capacity, Estimator estimator) {
+        this.nodeCount = nodeCount;
+        this.estimator = estimator;
+        this.vectors = new LinkedHashMap<Integer, double[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, double[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Returns the heuristic vector for target, indexed by node; callers must not modify
+    // it. A missing vector is computed outside the lock, so other destinations are not
+    // held up, and published under it; if two threads compute the same one, the first
+    // stored is kept.
+    public double[] vectorFor(int target) {
+        double[] vector;
+        synchronized (this) {
+            vector = vectors.get(target);
+        }
+        if (vector != null) {
+            return vector;
+        }
+
+        double[] computed = new double[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            computed[node] = estimator.estimate(node, target);
+        }
+        synchronized (this) {
+            vector = vectors.putIfAbsent(target, computed);
+        }
+        return vector != null ? vector : computed;
+    }
+
+    public synchronized void clear() {
+        vectors.clear();
+    }
+}
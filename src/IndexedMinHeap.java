@@ -0,0 +1,173 @@
+import java.util.Arrays;
+
+// Indexed d-ary min-heap over int node ids. Each node is in the heap at most once,
+// with its key stored next to it, so ordering costs a single double comparison and
+// an improved key is applied in place with decreaseKey instead of a duplicate entry.
+public class IndexedMinHeap {
+    private final int arity;
+    private int[] heap = new int[0];      // Node ids in heap order
+    private double[] keys = new double[0]; // keys[i] belongs to heap[i]
+    private int[] position = new int[0];  // Index of each node in heap, or -1
+    private int size;
+
+    // Pushes, pops and most nodes held at once since resetCounters(), counted while
+    // SearchMetrics.ENABLED
+    long pushes;
+    long pops;
+    int peakSize;
+
+    public IndexedMinHeap() {
+        this(4);
+    }
+
+    public IndexedMinHeap(int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2: " + arity);
+        }
+        this.arity = arity;
+    }
+
+    // Empties the heap and makes room for node ids below nodeCount.
+    public void clear(int nodeCount) {
+        if (position.length < nodeCount) {
+            heap = new int[nodeCount];
+            keys = new double[nodeCount];
+            position = new int[nodeCount];
+            Arrays.fill(position, -1);
+        } else {
+            for (int i = 0; i < size; i++) {
+                position[heap[i]] = -1;
+            }
+        }
+        size = 0;
+    }
+
+    public void resetCounters() {
+        pushes = 0;
+        pops = 0;
+        peakSize = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return position[node] >= 0;
+    }
+
+    public double key(int node) {
+        return keys[position[node]];
+    }
+
+    public double minKey() {
+        return keys[0];
+    }
+
+    public void push(int node, double key) {
+        int i = size++;
+        heap[i] = node;
+        keys[i] = key;
+        position[node] = i;
+        siftUp(i);
+        if (SearchMetrics.ENABLED) {
+            pushes++;
+            if (size > peakSize) {
+                peakSize = size;
+            }
+        }
+    }
+
+    // Lowers the key of a node that is already in the heap.
+    public void decreaseKey(int node, double key) {
+        int i = position[node];
+        keys[i] = key;
+        siftUp(i);
+    }
+
+    // Inserts the node, or lowers its key if it is queued with a larger one.
+    // Returns false if the node was already queued with a key no larger than key.
+    public boolean pushOrDecrease(int node, double key) {
+        int i = position[node];
+        if (i < 0) {
+            push(node, key);
+            return true;
+        }
+        if (key < keys[i]) {
+            decreaseKey(node, key);
+            return true;
+        }
+        return false;
+    }
+
+    // Removes and returns the node with the smallest key.
+    public int pop() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (SearchMetrics.ENABLED) {
+            pops++;
+        }
+        if (size > 0) {
+            heap[0] = heap[size];
+            keys[0] = keys[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        double key = keys[i];
+        while (i > 0) {
+            int parent = (i - 1) / arity;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        place(node, key, i);
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        double key = keys[i];
+        while (true) {
+            int first = i * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int best = first;
+            for (int child = first + 1; child < last; child++) {
+                if (keys[child] < keys[best]) {
+                    best = child;
+                }
+            }
+            if (keys[best] >= key) {
+                break;
+            }
+            move(best, i);
+            i = best;
+        }
+        place(node, key, i);
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        position[heap[to]] = to;
+    }
+
+    private void place(int node, double key, int i) {
+        heap[i] = node;
+        keys[i] = key;
+        position[node] = i;
+    }
+}
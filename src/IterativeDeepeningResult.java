@@ -0,0 +1,64 @@
+import java.util.Arrays;
+
+// Result of an iterative deepening search, which also reports how many nodes each
+// iteration expanded. Iteration i searched the paths of at most i edges. A result
+// replayed from a RouteCache keeps the iterations of the search that found the route.
+public class IterativeDeepeningResult extends SearchResult {
+    private final long[] expandedPerIteration;
+
+    private IterativeDeepeningResult(CompactGraph graph, int[] path, double cost, SearchContext context, long elapsedNanos,
+                                     long[] expandedPerIteration) {
+        super(graph, path, cost, context, elapsedNanos);
+        this.expandedPerIteration = expandedPerIteration;
+    }
+
+    private IterativeDeepeningResult(CompactGraph graph, long elapsedNanos) {
+        super(graph, new int[0], Double.POSITIVE_INFINITY, 0, elapsedNanos);
+        this.expandedPerIteration = new long[0];
+    }
+
+    private IterativeDeepeningResult(CompactGraph graph, int[] path, double cost, long nodesExpanded, long elapsedNanos,
+                                     long edgesRelaxed, long queuePushes, long queuePops, int peakFrontier,
+                                     long[] expandedPerIteration) {
+        super(graph, path, cost, nodesExpanded, elapsedNanos, edgesRelaxed, queuePushes, queuePops, peakFrontier);
+        this.expandedPerIteration = expandedPerIteration;
+    }
+
+    // Result for the search by algorithm from startCity to endCity held in context, which
+    // found a path of pathLength nodes, or none if pathLength is 0, in a search that began
+    // at startNanos.
+    static IterativeDeepeningResult of(SearchAlgorithm algorithm, String startCity, String endCity, CompactGraph graph,
+                                       SearchContext context, int pathLength, double cost, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        long[] expandedPerIteration = Arrays.copyOf(context.iterationExpanded, context.iterations);
+        return SearchResult.record(algorithm, startCity, endCity, new IterativeDeepeningResult(graph, Arrays.copyOf(context.path, pathLength),
+                pathLength > 0 ? cost : Double.POSITIVE_INFINITY, context, elapsed, expandedPerIteration));
+    }
+
+    // Result of a search by algorithm from startCity to endCity that began at startNanos
+    // and ran no iterations.
+    static IterativeDeepeningResult notStarted(SearchAlgorithm algorithm, String startCity, String endCity, CompactGraph graph,
+                                               long startNanos) {
+        return SearchResult.record(algorithm, startCity, endCity, new IterativeDeepeningResult(graph, System.nanoTime() - startNanos));
+    }
+
+    @Override
+    IterativeDeepeningResult copy(int[] path, long nodesExpanded, long elapsedNanos, long edgesRelaxed, long queuePushes,
+                                  long queuePops, int peakFrontier) {
+        return new IterativeDeepeningResult(graph(), path, cost(), nodesExpanded, elapsedNanos, edgesRelaxed, queuePushes,
+                queuePops, peakFrontier, expandedPerIteration);
+    }
+
+    public int iterations() {
+        return expandedPerIteration.length;
+    }
+
+    // Number of nodes expanded by the iteration that searched paths of at most iteration edges.
+    public long expandedInIteration(int iteration) {
+        return expandedPerIteration[iteration];
+    }
+
+    public long[] expandedPerIteration() {
+        return expandedPerIteration.clone();
+    }
+}
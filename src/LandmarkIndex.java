@@ -0,0 +1,183 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Lower bounds on shortest-path distances from a few landmark nodes and the triangle
+// inequality (ALT). With d(L, v) the distance from landmark L to v, every path from v to
+// t is at least |d(L, t) - d(L, v)| long, and the largest of these bounds over all
+// landmarks is an admissible and consistent A* heuristic. The graph is taken to be
+// undirected, as both CityGraph and CoordinateCity build it, so one distance per
+// landmark and node serves for paths in either direction.
+//
+// Landmarks are picked by farthest-point selection inside the largest component: each
+// new landmark is the node farthest from the ones already chosen. Nodes in other
+// components get no bound.
+//
+// When the graph is updated, the landmarks are carried over to the new version. If the
+// update can only make routes longer, as a road closure does, the old distances are kept
+// as they are: for every v and t, d(L, t) - d(L, v) <= d(v, t) held before and d(v, t)
+// has not shrunk, so the bounds stay admissible and consistent, only looser. Otherwise
+// the selection is skipped and the distances from the same landmarks are computed again,
+// in parallel.
+public class LandmarkIndex {
+    public static final int DEFAULT_LANDMARKS = 8;
+
+    private final int maxLandmarks;
+    private final int landmarkCount;
+    private final int[] landmarks;
+    private final double[] distances; // distances[node * landmarkCount + l], infinity if unreachable
+
+    public LandmarkIndex(CompactGraph graph, ComponentIndex components, int maxLandmarks) {
+        this.maxLandmarks = maxLandmarks;
+        int nodeCount = graph.nodeCount();
+        int[] chosen = new int[maxLandmarks];
+        double[] rows = new double[maxLandmarks * nodeCount];
+        int count = 0;
+
+        if (nodeCount > 0) {
+            // Start from the farthest node from some node of the largest component
+            double[] nearest = new double[nodeCount]; // Distance to the nearest chosen landmark
+            shortestDistances(graph, largestComponentNode(components, nodeCount), nearest, 0);
+            while (count < maxLandmarks) {
+                int farthest = -1;
+                for (int node = 0; node < nodeCount; node++) {
+                    if (nearest[node] != Double.POSITIVE_INFINITY && (farthest < 0 || nearest[node] > nearest[farthest])) {
+                        farthest = node;
+                    }
+                }
+                if (count > 0 && nearest[farthest] == 0) {
+                    break; // Every node of the component is already a landmark
+                }
+                chosen[count] = farthest;
+                shortestDistances(graph, farthest, rows, count * nodeCount);
+                for (int node = 0; node < nodeCount; node++) {
+                    nearest[node] = count == 0 ? rows[node] : Math.min(nearest[node], rows[count * nodeCount + node]);
+                }
+                count++;
+            }
+        }
+
+        landmarkCount = count;
+        landmarks = Arrays.copyOf(chosen, count);
+        distances = interleave(rows, count, nodeCount);
+    }
+
+    // Index over the given landmarks, with their rows computed on the common fork-join pool
+    private LandmarkIndex(CompactGraph graph, int[] landmarks, int maxLandmarks) {
+        int nodeCount = graph.nodeCount();
+        double[] rows = new double[landmarks.length * nodeCount];
+        IntStream.range(0, landmarks.length).parallel()
+                .forEach(l -> shortestDistances(graph, landmarks[l], rows, l * nodeCount));
+        this.maxLandmarks = maxLandmarks;
+        this.landmarkCount = landmarks.length;
+        this.landmarks = landmarks;
+        this.distances = interleave(rows, landmarks.length, nodeCount);
+    }
+
+    // Copy of an index with its rows renumbered for an updated graph
+    private LandmarkIndex(int maxLandmarks, int[] landmarks, double[] distances) {
+        this.maxLandmarks = maxLandmarks;
+        this.landmarkCount = landmarks.length;
+        this.landmarks = landmarks;
+        this.distances = distances;
+    }
+
+    // Index for updated, the result of applying update to graph, over the same landmark
+    // cities. Selects new landmarks if one of them was removed or there were none.
+    public LandmarkIndex forUpdate(GraphUpdate update, CompactGraph graph, CompactGraph updated, ComponentIndex components) {
+        int[] carried = new int[landmarkCount];
+        for (int l = 0; l < landmarkCount; l++) {
+            carried[l] = updated.id(graph.name(landmarks[l]));
+            if (carried[l] < 0) {
+                return new LandmarkIndex(updated, components, maxLandmarks);
+            }
+        }
+        if (landmarkCount == 0) {
+            return new LandmarkIndex(updated, components, maxLandmarks);
+        }
+        if (!update.onlyLengthens(graph)) {
+            return new LandmarkIndex(updated, carried, maxLandmarks);
+        }
+        if (updated.names == graph.names) {
+            return new LandmarkIndex(maxLandmarks, carried, distances); // Same cities, same ids
+        }
+
+        // Renumber the rows; cities the update added have no bounds
+        double[] renumbered = new double[landmarkCount * updated.nodeCount()];
+        for (int node = 0; node < updated.nodeCount(); node++) {
+            int old = graph.id(updated.name(node));
+            for (int l = 0; l < landmarkCount; l++) {
+                renumbered[node * landmarkCount + l] = old < 0 ? Double.POSITIVE_INFINITY : distances[old * landmarkCount + l];
+            }
+        }
+        return new LandmarkIndex(maxLandmarks, carried, renumbered);
+    }
+
+    // Interleaves the rows so the bounds of one node are adjacent in memory
+    private static double[] interleave(double[] rows, int count, int nodeCount) {
+        double[] interleaved = new double[count * nodeCount];
+        for (int l = 0; l < count; l++) {
+            for (int node = 0; node < nodeCount; node++) {
+                interleaved[node * count + l] = rows[l * nodeCount + node];
+            }
+        }
+        return interleaved;
+    }
+
+    private static int largestComponentNode(ComponentIndex components, int nodeCount) {
+        int[] sizes = new int[components.componentCount()];
+        int largest = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            int component = components.componentOf(node);
+            if (++sizes[component] > sizes[components.componentOf(largest)]) {
+                largest = node;
+            }
+        }
+        return largest;
+    }
+
+    // Dijkstra's algorithm from source, writing the distance of every node into
+    // result[offset .. offset + nodeCount - 1].
+    private static void shortestDistances(CompactGraph graph, int source, double[] result, int offset) {
+        int nodeCount = graph.nodeCount();
+        Arrays.fill(result, offset, offset + nodeCount, Double.POSITIVE_INFINITY);
+        SearchContext context = SearchContext.acquire(nodeCount);
+        IndexedMinHeap priorityQueue = context.heap;
+        priorityQueue.push(source, 0);
+        context.visit(source, -1, 0);
+
+        while (!priorityQueue.isEmpty()) {
+            int currentCity = priorityQueue.pop();
+            result[offset + currentCity] = context.distance[currentCity];
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                double cost = context.distance[currentCity] + graph.weights[e];
+                if (!context.isVisited(neighbor) || cost < context.distance[neighbor]) {
+                    context.visit(neighbor, currentCity, cost);
+                    priorityQueue.pushOrDecrease(neighbor, cost);
+                }
+            }
+        }
+    }
+
+    public int landmarkCount() {
+        return landmarkCount;
+    }
+
+    public int landmark(int index) {
+        return landmarks[index];
+    }
+
+    // Largest triangle-inequality lower bound on the distance between node and target.
+    public double estimate(int node, int target) {
+        double bound = 0;
+        int nodeRow = node * landmarkCount;
+        int targetRow = target * landmarkCount;
+        for (int l = 0; l < landmarkCount; l++) {
+            double difference = Math.abs(distances[targetRow + l] - distances[nodeRow + l]);
+            if (difference > bound && difference != Double.POSITIVE_INFINITY) {
+                bound = difference;
+            }
+        }
+        return bound;
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogram of latencies in nanoseconds over logarithmic buckets, in the manner of
+// HdrHistogram. Values below 2^SUB_BUCKET_BITS get a bucket each; above that, the range
+// of each power of two is split into 2^SUB_BUCKET_BITS equal buckets, so a value is
+// known to within 1/32 of itself whether it is a microsecond or a minute, in under
+// 2,000 buckets. Recording is one atomic increment, so searches on many threads can
+// share a histogram; reads are not a consistent snapshot while values are recorded.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    // Records one latency; negative values count as 0.
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Smallest recorded latency that at least fraction of the recorded latencies do not
+    // exceed, rounded up to the end of its bucket, or 0 if nothing was recorded.
+    public long percentile(double fraction) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(b), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts.set(b, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    // Values below SUB_BUCKETS map to themselves; a larger value with its highest bit at
+    // position m lands in block m - SUB_BUCKET_BITS + 1, at the sub-bucket given by its
+    // next SUB_BUCKET_BITS bits.
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    private static long highestValueIn(int bucket) {
+        int block = bucket >>> SUB_BUCKET_BITS;
+        if (block == 0) {
+            return bucket;
+        }
+        int shift = block - 1;
+        long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1f us p50=%.1f us p90=%.1f us p99=%.1f us p99.9=%.1f us max=%.1f us",
+                count(), mean() / 1e3, percentile(0.5) / 1e3, percentile(0.9) / 1e3, percentile(0.99) / 1e3,
+                percentile(0.999) / 1e3, max() / 1e3);
+    }
+}
@@ -4,11 +4,12 @@ import java.util.*;
 public class Main {
 
     public static void main(String[] args) throws IOException {
-        CityGraph cityGraph = new CityGraph();
-        CoordinateCity cityData = new CoordinateCity("coordinates.csv");
+        CityGraph cityGraph = loadCityGraph("Adjacencies.txt", "Adjacencies.snapshot");
+        CoordinateCity cityData = loadCoordinateCity("coordinates.csv", "coordinates.snapshot");
+        cityData = loadContractionHierarchy(cityData, "coordinates.hierarchy");
+        CoordinateCity roadNetwork = new CoordinateCity("coordinates.csv", "Adjacencies.txt");
         String answer = "X";
         boolean z = true;
-        cityGraph.readCityInformation("Adjacencies.txt");
         System.out.println("Please select the following option: ");
         System.out.println("1. Adjacencies.txt file ");
         System.out.println("2. coordinates.csv file ");
@@ -26,6 +27,11 @@ public class Main {
                     System.out.println("4. ID-DFS search ");
                     System.out.println("5. best-first search ");
                     System.out.println("6. A* search ");
+                    System.out.println("7. bidirectional breadth-first search ");
+                    System.out.println("8. bidirectional A* search ");
+                    System.out.println("9. Dijkstra search ");
+                    System.out.println("10. Dijkstra search with Dial's buckets ");
+                    System.out.println("11. Dijkstra search with a radix heap ");
                     scanner = new Scanner(System.in);
                     System.out.print("Enter: ");
                     selection = scanner.nextInt();
@@ -40,26 +46,55 @@ public class Main {
 
                     switch (selection){
                         case 1:
-                            cityGraph.bruteForceSearch(startCity,endCity);
+                            printResult("Brute-Force Search", startCity, endCity, cityGraph.bruteForceSearch(startCity,endCity), "");
                             System.out.println("");
                             break;
                         case 2:
-                            cityGraph.breadthFirstSearch(startCity, endCity);
+                            printResult("Breadth-First Search", startCity, endCity, cityGraph.breadthFirstSearch(startCity, endCity), "");
                             System.out.println("");
                             break;
                         case 3:
-                            cityGraph.depthFirstSearch(startCity, endCity);
+                            printResult("Depth-First Search", startCity, endCity, cityGraph.depthFirstSearch(startCity, endCity), "");
                             System.out.println("");
                             break;
                         case 4:
-                            cityGraph.iterativeDeepeningDFS(startCity, endCity);
+                            printResult("Iterative Deepening DFS", startCity, endCity, cityGraph.iterativeDeepeningDFS(startCity, endCity), "");
                             System.out.println("");
                             break;
                         case 5:
-                            cityGraph.bestFirstSearch(startCity, endCity);
+                            printResult("Best-First Search", startCity, endCity, cityGraph.bestFirstSearch(startCity, endCity), "");
                             System.out.println("");
                             break;
-                        case 6:cityGraph.aStarSearch(startCity, endCity);
+                        case 6:
+                            printResult("A* Search", startCity, endCity, cityGraph.aStarSearch(startCity, endCity), "");
+                            System.out.println("");
+                            break;
+                        case 7:
+                            printResult("Bidirectional Search", startCity, endCity, cityGraph.bidirectionalSearch(startCity, endCity), "");
+                            System.out.println("");
+                            break;
+                        case 8:
+                            printResult("Bidirectional A* Search", startCity, endCity, cityGraph.bidirectionalAStarSearch(startCity, endCity), "");
+                            System.out.println("");
+                            break;
+                        case 9:
+                            printResult("Dijkstra Search", startCity, endCity, cityGraph.dijkstraSearch(startCity, endCity), "");
+                            System.out.println("");
+                            break;
+                        case 10:
+                            try {
+                                printResult("Dial Search", startCity, endCity, cityGraph.dialSearch(startCity, endCity), "");
+                            } catch (IllegalStateException e) {
+                                System.out.println(e.getMessage());
+                            }
+                            System.out.println("");
+                            break;
+                        case 11:
+                            try {
+                                printResult("Radix Heap Search", startCity, endCity, cityGraph.radixHeapSearch(startCity, endCity), "");
+                            } catch (IllegalStateException e) {
+                                System.out.println(e.getMessage());
+                            }
                             System.out.println("");
                             break;
                     }
@@ -85,6 +120,11 @@ public class Main {
                     System.out.println("4. ID-DFS search ");
                     System.out.println("5. best-first search ");
                     System.out.println("6. A* search ");
+                    System.out.println("7. bidirectional breadth-first search ");
+                    System.out.println("8. bidirectional A* search ");
+                    System.out.println("9. contraction hierarchy search ");
+                    System.out.println("10. Dijkstra search ");
+                    System.out.println("11. A* search on the roads of Adjacencies.txt ");
                     scanner = new Scanner(System.in);
                     System.out.print("Enter: ");
                     System.out.println("");
@@ -98,27 +138,47 @@ public class Main {
                     System.out.println("");
                     switch (selection){
                         case 1:
-                            cityData.bruteForceSearch(startCity,endCity);
+                            printResult("Brute-Force Search", startCity, endCity, cityData.bruteForceSearch(startCity,endCity), " kilometers");
                             System.out.println("");
                             break;
                         case 2:
-                            cityData.bfs(startCity, endCity);
+                            printResult("Breadth-First Search", startCity, endCity, cityData.bfs(startCity, endCity), " kilometers");
                             System.out.println("");
                             break;
                         case 3:
-                            cityData.dfs(startCity, endCity);
+                            printResult("Depth-First Search", startCity, endCity, cityData.dfs(startCity, endCity), " kilometers");
                             System.out.println("");
                             break;
                         case 4:
-                            cityData.idDfs(startCity, endCity);
+                            printResult("Iterative Deepening DFS", startCity, endCity, cityData.idDfs(startCity, endCity), " kilometers");
                             System.out.println("");
                             break;
                         case 5:
-                            cityData.bestFirstSearch(startCity, endCity);
+                            printResult("Best-First Search", startCity, endCity, cityData.bestFirstSearch(startCity, endCity), " kilometers");
                             System.out.println("");
                             break;
                         case 6:
-                            cityData.aStarSearch(startCity, endCity);
+                            printResult("A* Search", startCity, endCity, cityData.aStarSearch(startCity, endCity), " kilometers");
+                            System.out.println("");
+                            break;
+                        case 7:
+                            printResult("Bidirectional Search", startCity, endCity, cityData.bidirectionalBfs(startCity, endCity), " kilometers");
+                            System.out.println("");
+                            break;
+                        case 8:
+                            printResult("Bidirectional A* Search", startCity, endCity, cityData.bidirectionalAStarSearch(startCity, endCity), " kilometers");
+                            System.out.println("");
+                            break;
+                        case 9:
+                            printResult("Contraction Hierarchy Search", startCity, endCity, cityData.contractionHierarchySearch(startCity, endCity), " kilometers");
+                            System.out.println("");
+                            break;
+                        case 10:
+                            printResult("Dijkstra Search", startCity, endCity, cityData.dijkstraSearch(startCity, endCity), " kilometers");
+                            System.out.println("");
+                            break;
+                        case 11:
+                            printResult("Road Network A* Search", startCity, endCity, roadNetwork.aStarSearch(startCity, endCity), " kilometers");
                             System.out.println("");
                             break;
                     }
@@ -138,6 +198,69 @@ public class Main {
                 break;
 
         }
+        if (SearchMetrics.ENABLED) {
+            System.out.print(SearchMetrics.report());
+        }
+    }
+
+    // Prints the path, its cost, the number of expanded cities and the search time, and
+    // the rest of the search's work when search metrics are enabled.
+    private static void printResult(String searchName, String startCity, String endCity, SearchResult result, String unit) {
+        if (!result.found()) {
+            System.out.println("No path found from " + startCity + " to " + endCity);
+            return;
+        }
+        System.out.println("Path from " + startCity + " to " + endCity + ": " + String.join(" -> ", result.pathNames()));
+        System.out.println("Path Distance: " + result.cost() + unit);
+        System.out.println("Cities Expanded: " + result.nodesExpanded());
+        if (result instanceof IterativeDeepeningResult) {
+            long[] perIteration = ((IterativeDeepeningResult) result).expandedPerIteration();
+            System.out.println("Cities Expanded per Depth Limit: " + Arrays.toString(perIteration));
+        }
+        if (SearchMetrics.ENABLED) {
+            System.out.println("Edges Relaxed: " + result.edgesRelaxed() + ", Queue Pushes: " + result.queuePushes()
+                    + ", Queue Pops: " + result.queuePops() + ", Peak Frontier: " + result.peakFrontier());
+        }
+        System.out.println(searchName + " Execution Time: " + result.elapsedNanos() / 1e6 + " milliseconds");
+    }
+
+    // Loads the road graph from its snapshot if it was made from the same file, otherwise
+    // parses the text file and writes a fresh snapshot for the next start.
+    private static CityGraph loadCityGraph(String fileName, String snapshotFile) throws IOException {
+        long sourceKey = GraphSnapshot.sourceKey(fileName);
+        if (GraphSnapshot.isCurrent(snapshotFile, sourceKey)) {
+            return CityGraph.fromSnapshot(snapshotFile);
+        }
+        CityGraph cityGraph = CityGraph.read(fileName);
+        cityGraph.writeSnapshot(snapshotFile, sourceKey);
+        return cityGraph;
+    }
+
+    private static CoordinateCity loadCoordinateCity(String fileName, String snapshotFile) throws IOException {
+        double distanceThreshold = CoordinateCity.DEFAULT_DISTANCE_THRESHOLD;
+        long sourceKey = GraphSnapshot.sourceKey(fileName, distanceThreshold);
+        if (GraphSnapshot.isCurrent(snapshotFile, sourceKey)) {
+            return CoordinateCity.fromSnapshot(snapshotFile);
+        }
+        CoordinateCity cityData = new CoordinateCity(fileName, distanceThreshold);
+        cityData.writeSnapshot(snapshotFile, sourceKey);
+        return cityData;
+    }
+
+    // Returns cityData with its contraction hierarchy read from hierarchyFile, otherwise
+    // built and saved. The file records the graph it was built for, so one made for
+    // another graph is reported and replaced.
+    private static CoordinateCity loadContractionHierarchy(CoordinateCity cityData, String hierarchyFile) throws IOException {
+        if (new File(hierarchyFile).isFile()) {
+            try {
+                return cityData.withContractionHierarchy(hierarchyFile);
+            } catch (IOException e) {
+                System.err.println(e.getMessage() + "; rebuilding it");
+            }
+        }
+        CoordinateCity withHierarchy = cityData.withContractionHierarchy();
+        withHierarchy.writeContractionHierarchy(hierarchyFile);
+        return withHierarchy;
     }
 }
 //Wichita Manhattan
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Distance matrices between sets of cities. Each source runs one Dijkstra search that
+// stops as soon as every target it can reach has been settled, instead of one
+// point-to-point search per pair, and the sources are spread over the common
+// fork-join pool.
+public class ManyToManySearch {
+    private ManyToManySearch() {
+    }
+
+    // Computes the matrix between cities given by name; unknown names get infinite rows or columns.
+    public static DistanceMatrix compute(CompactGraph graph, ComponentIndex components, List<String> sources, List<String> targets, boolean withPaths) {
+        return compute(graph, components, ids(graph, sources), ids(graph, targets), withPaths);
+    }
+
+    private static int[] ids(CompactGraph graph, List<String> names) {
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = graph.id(names.get(i));
+        }
+        return ids;
+    }
+
+    // Computes the matrix from sources to targets, given as node ids with -1 for unknown
+    // cities. Paths are kept only if withPaths is set.
+    public static DistanceMatrix compute(CompactGraph graph, ComponentIndex components, int[] sources, int[] targets, boolean withPaths) {
+        long startTime = System.nanoTime();
+        int nodeCount = graph.nodeCount();
+
+        // Columns of each target node, as linked lists: firstColumn[node], then nextColumn[column]
+        int[] firstColumn = new int[nodeCount];
+        Arrays.fill(firstColumn, -1);
+        int[] nextColumn = new int[targets.length];
+        for (int j = targets.length - 1; j >= 0; j--) {
+            if (targets[j] >= 0) {
+                nextColumn[j] = firstColumn[targets[j]];
+                firstColumn[targets[j]] = j;
+            }
+        }
+
+        double[] distances = new double[sources.length * targets.length];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        int[][] paths = withPaths ? new int[sources.length * targets.length][] : null;
+        long[] expanded = new long[sources.length];
+        IntStream.range(0, sources.length).parallel().forEach(i -> expanded[i] = searchFrom(
+                graph, components, sources[i], targets, firstColumn, nextColumn, distances, paths, i * targets.length));
+
+        return new DistanceMatrix(graph, sources.length, targets.length, distances, paths,
+                Arrays.stream(expanded).sum(), System.nanoTime() - startTime);
+    }
+
+    // Dijkstra's algorithm from source that fills the row starting at rowOffset and
+    // returns the number of nodes expanded.
+    private static long searchFrom(CompactGraph graph, ComponentIndex components, int source, int[] targets,
+                                   int[] firstColumn, int[] nextColumn, double[] distances, int[][] paths, int rowOffset) {
+        if (source < 0) {
+            return 0;
+        }
+        SearchContext context = SearchContext.acquire(graph.nodeCount());
+
+        // Count the distinct target nodes this search has to settle
+        int remaining = 0;
+        for (int j = 0; j < targets.length; j++) {
+            int target = targets[j];
+            if (target >= 0 && firstColumn[target] == j && components.connected(source, target)) {
+                remaining++;
+            }
+        }
+
+        IndexedMinHeap priorityQueue = context.heap;
+        priorityQueue.push(source, 0);
+        context.visit(source, -1, 0);
+        while (remaining > 0) {
+            int currentCity = priorityQueue.pop();
+
+            if (firstColumn[currentCity] >= 0) {
+                int pathLength = paths != null ? context.buildPath(currentCity) : 0;
+                for (int j = firstColumn[currentCity]; j >= 0; j = nextColumn[j]) {
+                    distances[rowOffset + j] = context.distance[currentCity];
+                    if (paths != null) {
+                        paths[rowOffset + j] = Arrays.copyOf(context.path, pathLength);
+                    }
+                }
+                if (--remaining == 0) {
+                    break; // Every reachable target is settled
+                }
+            }
+            context.expand(graph.offsets, currentCity);
+
+            for (int e = graph.offsets[currentCity]; e < graph.offsets[currentCity + 1]; e++) {
+                int neighbor = graph.targets[e];
+                double cost = context.distance[currentCity] + graph.weights[e];
+                if (!context.isVisited(neighbor) || cost < context.distance[neighbor]) {
+                    context.visit(neighbor, currentCity, cost);
+                    priorityQueue.pushOrDecrease(neighbor, cost);
+                }
+            }
+        }
+        return context.expanded;
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+
+// Radix heap over int node ids with non-negative whole-number keys, for Dijkstra's
+// algorithm on integer weights of any size. Keys are grouped by the highest bit in
+// which they differ from the last key popped: bucket 0 holds keys equal to it, and
+// bucket i the keys whose highest differing bit is bit i - 1. When bucket 0 runs empty,
+// the smallest key of the first non-empty bucket becomes the last key and that
+// bucket's nodes move to lower buckets, so each node moves at most 64 times in all.
+// Popped keys must never decrease, which Dijkstra's algorithm guarantees.
+public class RadixHeap {
+    private static final int BUCKETS = 65;
+
+    private final int[] bucketHead = new int[BUCKETS]; // First node of each bucket, or -1
+    private int[] next = new int[0];                    // Doubly linked bucket lists, ending in -1
+    private int[] previous = new int[0];
+    private byte[] bucket = new byte[0];                // Bucket of each node, or -1
+    private long[] keys = new long[0];
+    private long last; // Last key popped
+    private int size;
+
+    // Pushes, pops and most nodes held at once since resetCounters(), counted while
+    // SearchMetrics.ENABLED
+    long pushes;
+    long pops;
+    int peakSize;
+
+    public RadixHeap() {
+        Arrays.fill(bucketHead, -1);
+    }
+
+    // Empties the heap and makes room for node ids below nodeCount.
+    public void clear(int nodeCount) {
+        if (bucket.length < nodeCount) {
+            next = new int[nodeCount];
+            previous = new int[nodeCount];
+            bucket = new byte[nodeCount];
+            keys = new long[nodeCount];
+            Arrays.fill(bucket, (byte) -1);
+        } else {
+            for (int b = 0; b < BUCKETS; b++) {
+                for (int node = bucketHead[b]; node >= 0; node = next[node]) {
+                    bucket[node] = -1;
+                }
+            }
+        }
+        Arrays.fill(bucketHead, -1);
+        last = 0;
+        size = 0;
+    }
+
+    public void resetCounters() {
+        pushes = 0;
+        pops = 0;
+        peakSize = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return bucket[node] >= 0;
+    }
+
+    public long key(int node) {
+        return keys[node];
+    }
+
+    public void push(int node, long key) {
+        size++;
+        link(node, key);
+        if (SearchMetrics.ENABLED) {
+            pushes++;
+            if (size > peakSize) {
+                peakSize = size;
+            }
+        }
+    }
+
+    // Lowers the key of a node that is already queued.
+    public void decreaseKey(int node, long key) {
+        unlink(node);
+        link(node, key);
+    }
+
+    // Inserts the node, or lowers its key if it is queued with a larger one.
+    // Returns false if the node was already queued with a key no larger than key.
+    public boolean pushOrDecrease(int node, long key) {
+        if (bucket[node] < 0) {
+            push(node, key);
+            return true;
+        }
+        if (key < keys[node]) {
+            decreaseKey(node, key);
+            return true;
+        }
+        return false;
+    }
+
+    // Removes and returns a node with the smallest key.
+    public int pop() {
+        if (bucketHead[0] < 0) {
+            int b = 1;
+            while (bucketHead[b] < 0) {
+                b++;
+            }
+            long min = Long.MAX_VALUE;
+            for (int node = bucketHead[b]; node >= 0; node = next[node]) {
+                min = Math.min(min, keys[node]);
+            }
+            last = min;
+
+            // Every key of the bucket now differs from last in a lower bit
+            int node = bucketHead[b];
+            bucketHead[b] = -1;
+            while (node >= 0) {
+                int following = next[node];
+                link(node, keys[node]);
+                node = following;
+            }
+        }
+        int min = bucketHead[0];
+        unlink(min);
+        size--;
+        if (SearchMetrics.ENABLED) {
+            pops++;
+        }
+        return min;
+    }
+
+    private void link(int node, long key) {
+        int b = key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+        keys[node] = key;
+        bucket[node] = (byte) b;
+        previous[node] = -1;
+        next[node] = bucketHead[b];
+        if (bucketHead[b] >= 0) {
+            previous[bucketHead[b]] = node;
+        }
+        bucketHead[b] = node;
+    }
+
+    private void unlink(int node) {
+        if (previous[node] >= 0) {
+            next[previous[node]] = next[node];
+        } else {
+            bucketHead[bucket[node]] = next[node];
+        }
+        if (next[node] >= 0) {
+            previous[next[node]] = previous[node];
+        }
+        bucket[node] = -1;
+    }
+}
@@ -0,0 +1,206 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Remembers recent route results in front of another RouteGraph, so a repeated query is
+// a hash lookup instead of a search. Entries are keyed on the start city, the end city,
+// the algorithm and the graph version. Both graphs are undirected, so for algorithms
+// that find a shortest path a route from A to B is stored once and served reversed for
+// a query from B to A; the other algorithms depend on the direction and keep one entry
+// per direction.
+//
+// The cache holds at most capacity routes. It is split into segments by key hash, each
+// a least-recently-used map under its own lock, so concurrent queries rarely wait on
+// each other. When the graph's version changes, every older entry is dropped. Two
+// threads that miss on the same key both search, and the later result is kept.
+//
+// A hit is reported with no expanded nodes and the time of the lookup. It keeps the
+// class of the stored result, so an ITERATIVE_DEEPENING hit is still an
+// IterativeDeepeningResult with the iterations of the search that found the route.
+public class RouteCache implements RouteGraph {
+    public static final int DEFAULT_CAPACITY = 10_000;
+    private static final int SEGMENTS = 16;
+
+    private final RouteGraph graph;
+    private final int capacity;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long cachedVersion;
+
+    public RouteCache(RouteGraph graph) {
+        this(graph, DEFAULT_CAPACITY);
+    }
+
+    public RouteCache(RouteGraph graph, int capacity) {
+        if (capacity < SEGMENTS) {
+            throw new IllegalArgumentException("A route cache needs room for at least " + SEGMENTS + " routes, not " + capacity);
+        }
+        this.graph = graph;
+        this.capacity = capacity;
+        this.cachedVersion = graph.version();
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity / SEGMENTS + (i < capacity % SEGMENTS ? 1 : 0));
+        }
+    }
+
+    private static final class Key {
+        final String start;
+        final String end;
+        final SearchAlgorithm algorithm;
+        final long version;
+        final int hash;
+
+        Key(String start, String end, SearchAlgorithm algorithm, long version) {
+            this.start = start;
+            this.end = end;
+            this.algorithm = algorithm;
+            this.version = version;
+            this.hash = 31 * (31 * (31 * start.hashCode() + end.hashCode()) + algorithm.hashCode()) + Long.hashCode(version);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash && version == key.version && algorithm == key.algorithm
+                    && start.equals(key.start) && end.equals(key.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // Access-ordered map that drops its least recently used route beyond capacity
+    private final class Segment extends LinkedHashMap<Key, SearchResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SearchResult> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public SearchResult search(SearchAlgorithm algorithm, String startCity, String endCity) {
+        long startTime = System.nanoTime();
+        long version = graph.version();
+        if (version != cachedVersion) {
+            invalidate(version);
+        }
+
+        // Shortest routes are stored from the lexicographically smaller city
+        boolean reversed = algorithm.findsShortestPath() && startCity.compareTo(endCity) > 0;
+        Key key = reversed ? new Key(endCity, startCity, algorithm, version) : new Key(startCity, endCity, algorithm, version);
+        Segment segment = segments[(key.hash ^ (key.hash >>> 16)) & (SEGMENTS - 1)];
+
+        SearchResult cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            SearchResult result = reversed ? cached.reversed() : cached;
+            return result.replay(System.nanoTime() - startTime);
+        }
+
+        misses.increment();
+        SearchResult result = graph.search(algorithm, startCity, endCity);
+        SearchResult stored = reversed ? result.reversed() : result;
+        synchronized (segment) {
+            segment.put(key, stored);
+        }
+        return result;
+    }
+
+    // Drops every entry if version is newer than the entries'. Entries keyed on an older
+    // version could never be hit again; clearing them frees their room at once.
+    private void invalidate(long version) {
+        synchronized (this) {
+            if (version == cachedVersion) {
+                return;
+            }
+            cachedVersion = version;
+        }
+        clear();
+    }
+
+    @Override
+    public DistanceMatrix distanceMatrix(List<String> sourceCities, List<String> targetCities, boolean withPaths) {
+        return graph.distanceMatrix(sourceCities, targetCities, withPaths);
+    }
+
+    @Override
+    public long version() {
+        return graph.version();
+    }
+
+    // Returns an empty cache of the same capacity in front of the updated graph. Every
+    // route cached here is for the old version, so none would be hit again.
+    @Override
+    public RouteCache withUpdate(GraphUpdate update) {
+        return new RouteCache(graph.withUpdate(update), capacity);
+    }
+
+    // Empties the cache; the counters keep running.
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    // Routes dropped to make room, not counting those dropped by invalidation
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    // Fraction of lookups answered from the cache, or 0 before the first lookup
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RouteCache[size=%d, hits=%d, misses=%d, evictions=%d, hit rate=%.1f%%]",
+                size(), hits(), misses(), evictions(), 100 * hitRate());
+    }
+}
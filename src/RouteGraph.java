@@ -0,0 +1,23 @@
+import java.util.List;
+
+// A loaded graph that answers route queries by algorithm. Implementations keep all of a
+// query's scratch state in the SearchContext of the calling thread and are not modified
+// once built: loading, precomputed tables and updates each produce a new instance. So
+// a graph may be searched from many threads at once.
+public interface RouteGraph {
+    // Runs the algorithm from startCity to endCity. Throws IllegalArgumentException if
+    // this graph does not support the algorithm.
+    SearchResult search(SearchAlgorithm algorithm, String startCity, String endCity);
+
+    // Shortest distances from every source city to every target city, with one search
+    // per source; see ManyToManySearch. Paths are kept only if withPaths is set.
+    DistanceMatrix distanceMatrix(List<String> sourceCities, List<String> targetCities, boolean withPaths);
+
+    // Grows with each withUpdate, so results computed on an earlier graph can be told apart.
+    long version();
+
+    // Returns a new graph with the update applied and a later version; this one is left
+    // as it was, so searches already running on it are not disturbed. Throws
+    // IllegalArgumentException if the update does not fit the graph.
+    RouteGraph withUpdate(GraphUpdate update);
+}
@@ -0,0 +1,83 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+// Serves route queries from many callers at once against one shared, fully loaded graph.
+// Each request runs on its own virtual thread, so thousands can be in flight cheaply,
+// while a semaphore lets only as many searches run at a time as the service has
+// SearchContexts (one per core by default). The searches are CPU-bound, and each
+// context holds arrays the size of the graph, so running more at once would only
+// cost memory.
+//
+// Graphs are not modified once built, so a published graph stays as it was. To switch
+// graphs, load or precompute a new instance and publish it, or apply a GraphUpdate with update(), which publishes the updated copy:
+// the volatile write makes it fully visible to every query that starts afterwards,
+// while queries already running finish on the graph they started with.
+public class RouteService implements AutoCloseable {
+    private volatile RouteGraph graph;
+    private final Semaphore searchPermits;
+    private final ConcurrentLinkedQueue<SearchContext> contexts = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RouteService(RouteGraph graph) {
+        this(graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    public RouteService(RouteGraph graph, int maxConcurrentSearches) {
+        if (maxConcurrentSearches < 1) {
+            throw new IllegalArgumentException("maxConcurrentSearches must be positive, not " + maxConcurrentSearches);
+        }
+        this.graph = graph;
+        this.searchPermits = new Semaphore(maxConcurrentSearches);
+    }
+
+    // Replaces the graph for queries that start from now on.
+    public synchronized void publish(RouteGraph graph) {
+        this.graph = graph;
+    }
+
+    public RouteGraph graph() {
+        return graph;
+    }
+
+    // Publishes a copy of the current graph with the update applied and returns it.
+    // Queries keep running on the old graph while the copy is built. Concurrent updates
+    // are applied one after the other, so none is lost.
+    public synchronized RouteGraph update(GraphUpdate update) {
+        RouteGraph updated = graph.withUpdate(update);
+        graph = updated;
+        return updated;
+    }
+
+    // Runs the query on a new virtual thread. The future fails with the search's
+    // exception, such as IllegalArgumentException for an unsupported algorithm.
+    public CompletableFuture<SearchResult> route(SearchAlgorithm algorithm, String startCity, String endCity) {
+        return CompletableFuture.supplyAsync(() -> search(algorithm, startCity, endCity), executor);
+    }
+
+    // Runs the query on the calling thread once a search slot is free.
+    public SearchResult search(SearchAlgorithm algorithm, String startCity, String endCity) {
+        RouteGraph current = graph;
+        searchPermits.acquireUninterruptibly();
+        SearchContext context = contexts.poll();
+        if (context == null) {
+            context = new SearchContext();
+        }
+        SearchContext.lend(context);
+        try {
+            return current.search(algorithm, startCity, endCity);
+        } finally {
+            SearchContext.lend(null);
+            contexts.offer(context);
+            searchPermits.release();
+        }
+    }
+
+    // Stops accepting queries and waits for the running ones to finish.
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,29 @@
+// The search strategies a RouteGraph can run, named independently of the method names
+// of CityGraph and CoordinateCity.
+public enum SearchAlgorithm {
+    BRUTE_FORCE(false),
+    BREADTH_FIRST(true),
+    DEPTH_FIRST(false),
+    ITERATIVE_DEEPENING(true),
+    BEST_FIRST(false),
+    A_STAR(true),
+    BIDIRECTIONAL_BREADTH_FIRST(true),
+    BIDIRECTIONAL_A_STAR(true),
+    CONTRACTION_HIERARCHY(true), // CoordinateCity only, once its hierarchy is built
+    DIJKSTRA(true),
+    DIJKSTRA_DIAL(true), // CityGraph only, with whole-number road lengths
+    DIJKSTRA_RADIX_HEAP(true); // CityGraph only, with whole-number road lengths
+
+    private final boolean shortest;
+
+    SearchAlgorithm(boolean shortest) {
+        this.shortest = shortest;
+    }
+
+    // Whether the search always finds a shortest path: the one with the fewest roads for
+    // the breadth-first searches and ID-DFS, the lightest one for the others. On an
+    // undirected graph such a route from A to B, walked backward, is also one from B to A.
+    public boolean findsShortestPath() {
+        return shortest;
+    }
+}
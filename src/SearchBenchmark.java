@@ -0,0 +1,385 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+// Measures every search strategy of CityGraph and CoordinateCity on the bundled data
+// files and on grid, random-geometric, chain and scale-free graphs from GraphGenerator. For each
+// strategy the queries are first run until the JIT has warmed up, then timed one by
+// one until the time budget is spent, and the report gives the throughput, latency
+// percentiles and bytes allocated per query. A* is also measured under load, with
+// thousands of requests in flight at once through a RouteService, and as a distance
+// matrix between all starts and ends of the queries. Run with -Dsearch.metrics=true to
+// see the cost of the search statistics, and the latency histograms of every query
+// run, warm-up included, at the end.
+//
+// Usage: java SearchBenchmark [--sizes 1000,10000,100000] [--budget-ms 2000]
+//                             [--warmup-ms 1000] [--queries 16] [--seed 42]
+public class SearchBenchmark {
+    // Brute force and the backtracking CityGraph DFS enumerate simple paths, which takes
+    // exponential time on anything but the small bundled graphs, and ID-DFS repeats its
+    // search once per hop of the path, which is quadratic on long chains
+    private static final String[][] ADJACENCY_QUERIES = {
+            {"Wichita", "Manhattan"}, {"Wichita", "Topeka"}, {"Anthony", "Hays"}, {"Kiowa", "Emporia"}, {"Zenda", "Caldwell"}
+    };
+    private static final String[][] COORDINATE_QUERIES = {
+            {"Wichita", "Manhattan"}, {"Wichita", "Topeka"}, {"Kiowa", "Emporia"}, {"Zenda", "Caldwell"}, {"Anthony", "Salina"}
+    };
+    // The coordinate graph is dense enough that brute force only finishes quickly for some pairs
+    private static final String[][] COORDINATE_EXHAUSTIVE_QUERIES = {
+            {"Wichita", "Manhattan"}, {"Kiowa", "Emporia"}, {"Zenda", "Caldwell"}
+    };
+
+    private static final double GRID_JITTER = 0.3;
+    private static final double MEAN_DEGREE = 8; // Expected neighbors in the random geometric graphs
+    private static final int SCALE_FREE_LINKS = 2;
+    private static final int CONCURRENT_REQUESTS = 20_000; // Requests in flight at once through RouteService
+    // Contraction hierarchies are only built up to this size; the threshold graphs are
+    // dense, and on grids the preprocessing takes tens of seconds from 10,000 nodes on
+    private static final int MAX_HIERARCHY_NODES = 20_000;
+
+    // Keeps the JIT from discarding searches whose results are never used
+    private static volatile SearchResult blackhole;
+
+    private interface Search {
+        SearchResult run(String startCity, String endCity);
+    }
+
+    private static class Strategy {
+        final String name;
+        final Search search;
+        final boolean exhaustive;
+
+        Strategy(String name, Search search, boolean exhaustive) {
+            this.name = name;
+            this.search = search;
+            this.exhaustive = exhaustive;
+        }
+    }
+
+    private final long budgetNanos;
+    private final long warmupNanos;
+    private final com.sun.management.ThreadMXBean threads;
+
+    private SearchBenchmark(long budgetMillis, long warmupMillis) {
+        this.budgetNanos = budgetMillis * 1_000_000;
+        this.warmupNanos = warmupMillis * 1_000_000;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        this.threads = bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = {1_000, 10_000, 100_000};
+        long budgetMillis = 2000;
+        long warmupMillis = 1000;
+        int queryCount = 16;
+        long seed = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--budget-ms":
+                    budgetMillis = Long.parseLong(args[i + 1]);
+                    break;
+                case "--warmup-ms":
+                    warmupMillis = Long.parseLong(args[i + 1]);
+                    break;
+                case "--queries":
+                    queryCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        SearchBenchmark benchmark = new SearchBenchmark(budgetMillis, warmupMillis);
+        benchmark.printHeader();
+
+        CityGraph adjacencies = CityGraph.read("Adjacencies.txt");
+        benchmark.run("Adjacencies.txt", cityGraphStrategies(adjacencies), ADJACENCY_QUERIES, ADJACENCY_QUERIES);
+        benchmark.measureConcurrent("Adjacencies.txt", "CityGraph A*", adjacencies, ADJACENCY_QUERIES);
+        benchmark.measureMatrix("Adjacencies.txt", "CityGraph", adjacencies, ADJACENCY_QUERIES);
+        CoordinateCity coordinates = new CoordinateCity("coordinates.csv").withContractionHierarchy();
+        benchmark.run("coordinates.csv", coordinateCityStrategies(coordinates), COORDINATE_QUERIES, COORDINATE_EXHAUSTIVE_QUERIES);
+        benchmark.measureConcurrent("coordinates.csv", "CoordinateCity A*", coordinates, COORDINATE_QUERIES);
+        benchmark.measureMatrix("coordinates.csv", "CoordinateCity", coordinates, COORDINATE_QUERIES);
+
+        // The roads of Adjacencies.txt, weighted with the distances from coordinates.csv
+        CoordinateCity roads = new CoordinateCity("coordinates.csv", "Adjacencies.txt");
+        benchmark.run("roads", coordinateCityStrategies(roads), ADJACENCY_QUERIES, ADJACENCY_QUERIES);
+
+        // The same queries through route caches, where every timed query is a repeat
+        RouteCache adjacencyCache = new RouteCache(adjacencies);
+        benchmark.run("Adjacencies.txt", List.of(new Strategy("CityGraph A* (cached)",
+                (start, end) -> adjacencyCache.search(SearchAlgorithm.A_STAR, start, end), false)), ADJACENCY_QUERIES, null);
+        RouteCache coordinateCache = new RouteCache(coordinates);
+        benchmark.run("coordinates.csv", List.of(new Strategy("CoordinateCity A* (cached)",
+                (start, end) -> coordinateCache.search(SearchAlgorithm.A_STAR, start, end), false)), COORDINATE_QUERIES, null);
+
+        // The same queries answered from precomputed all-pairs tables
+        CityGraph adjacencyTable = adjacencies.withAllPairs();
+        benchmark.run("Adjacencies.txt", List.of(
+                new Strategy("CityGraph BFS (all pairs)", adjacencyTable::breadthFirstSearch, false),
+                new Strategy("CityGraph A* (all pairs)", adjacencyTable::aStarSearch, false)), ADJACENCY_QUERIES, null);
+        CoordinateCity coordinateTable = coordinates.withAllPairs();
+        benchmark.run("coordinates.csv", List.of(
+                new Strategy("CoordinateCity A* (all pairs)", coordinateTable::aStarSearch, false)), COORDINATE_QUERIES, null);
+
+        File directory = Files.createTempDirectory("search-benchmark").toFile();
+        try {
+            for (int size : sizes) {
+                Random random = new Random(seed + size);
+                benchmark.runGenerated(directory, "grid-" + size, GraphGenerator.grid(size, GRID_JITTER, seed), queryCount, random);
+                benchmark.runGenerated(directory, "geometric-" + size, GraphGenerator.geometric(size, MEAN_DEGREE, seed), queryCount, random);
+                benchmark.runGenerated(directory, "chain-" + size, GraphGenerator.chain(size, seed), queryCount, random);
+                benchmark.runGenerated(directory, "scale-free-" + size, GraphGenerator.scaleFree(size, SCALE_FREE_LINKS, seed), queryCount, random);
+            }
+        } finally {
+            for (File file : Objects.requireNonNull(directory.listFiles())) {
+                file.delete();
+            }
+            directory.delete();
+        }
+        if (SearchMetrics.ENABLED) {
+            System.out.println();
+            System.out.print(SearchMetrics.report());
+        }
+    }
+
+    private static List<Strategy> cityGraphStrategies(CityGraph graph) {
+        return List.of(
+                new Strategy("CityGraph brute force", graph::bruteForceSearch, true),
+                new Strategy("CityGraph BFS", graph::breadthFirstSearch, false),
+                new Strategy("CityGraph DFS", graph::depthFirstSearch, true),
+                new Strategy("CityGraph ID-DFS", graph::iterativeDeepeningDFS, true),
+                new Strategy("CityGraph best-first", graph::bestFirstSearch, false),
+                new Strategy("CityGraph A*", graph::aStarSearch, false),
+                new Strategy("CityGraph bidirectional BFS", graph::bidirectionalSearch, false),
+                new Strategy("CityGraph bidirectional A*", graph::bidirectionalAStarSearch, false),
+                new Strategy("CityGraph Dijkstra (heap)", graph::dijkstraSearch, false),
+                new Strategy("CityGraph Dijkstra (Dial)", graph::dialSearch, false),
+                new Strategy("CityGraph Dijkstra (radix heap)", graph::radixHeapSearch, false));
+    }
+
+    private static List<Strategy> coordinateCityStrategies(CoordinateCity graph) {
+        List<Strategy> strategies = new ArrayList<>(List.of(
+                new Strategy("CoordinateCity brute force", graph::bruteForceSearch, true),
+                new Strategy("CoordinateCity BFS", graph::bfs, false),
+                new Strategy("CoordinateCity DFS", graph::dfs, false),
+                new Strategy("CoordinateCity ID-DFS", graph::idDfs, true),
+                new Strategy("CoordinateCity best-first", graph::bestFirstSearch, false),
+                new Strategy("CoordinateCity A*", graph::aStarSearch, false),
+                new Strategy("CoordinateCity bidirectional BFS", graph::bidirectionalBfs, false),
+                new Strategy("CoordinateCity bidirectional A*", graph::bidirectionalAStarSearch, false),
+                new Strategy("CoordinateCity Dijkstra", graph::dijkstraSearch, false)));
+        if (graph.hasContractionHierarchy()) {
+            strategies.add(new Strategy("CoordinateCity contraction hierarchy", graph::contractionHierarchySearch, false));
+        }
+        return strategies;
+    }
+
+    // Writes the generated graph to the data file formats, loads it through the public
+    // constructors and benchmarks it. CityGraph reads the edges, weighted with whole
+    // kilometers if the topology has coordinates, so the integer Dijkstra queues see
+    // road-like lengths; CoordinateCity reads the
+    // coordinates, if the topology has any, and links points within the generator's threshold.
+    private void runGenerated(File directory, String name, GraphGenerator generator, int queryCount, Random random) throws IOException {
+        int nodeCount = generator.nodeCount();
+        String[][] queries = new String[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            queries[i] = new String[]{GraphGenerator.nodeName(random.nextInt(nodeCount)), GraphGenerator.nodeName(random.nextInt(nodeCount))};
+        }
+
+        File edgeFile = new File(directory, name + ".txt");
+        generator.writeEdges(edgeFile.getPath(), generator.hasCoordinates());
+        CityGraph cityGraph = CityGraph.read(edgeFile.getPath());
+        run(name, cityGraphStrategies(cityGraph), queries, null);
+        measureConcurrent(name, "CityGraph A*", cityGraph, queries);
+        measureMatrix(name, "CityGraph", cityGraph, queries);
+        measureUpdate(name, cityGraph, edgeFile, queries);
+        cityGraph = null; // Let the edge graph be collected before the coordinate graph is built
+
+        if (generator.hasCoordinates()) {
+            File coordinateFile = new File(directory, name + ".csv");
+            generator.writeCoordinates(coordinateFile.getPath());
+            CoordinateCity coordinateCity = new CoordinateCity(coordinateFile.getPath(), generator.distanceThreshold(), true);
+            if (nodeCount <= MAX_HIERARCHY_NODES) {
+                long buildStart = System.nanoTime();
+                coordinateCity = coordinateCity.withContractionHierarchy();
+                System.out.printf("%-18s %-34s built in %.0f ms%n", name, "CoordinateCity contraction hierarchy", (System.nanoTime() - buildStart) / 1e6);
+            }
+            run(name, coordinateCityStrategies(coordinateCity), queries, null);
+            measureConcurrent(name, "CoordinateCity A*", coordinateCity, queries);
+            measureMatrix(name, "CoordinateCity", coordinateCity, queries);
+        }
+    }
+
+    // Times closing the first road on the route of a query with withUpdate against reading
+    // the edge file again, the only way to change the graph before updates existed.
+    private void measureUpdate(String dataset, CityGraph cityGraph, File edgeFile, String[][] queries) throws IOException {
+        for (String[] query : queries) {
+            List<String> path = cityGraph.aStarSearch(query[0], query[1]).pathNames();
+            if (path.size() < 2) {
+                continue;
+            }
+            long reloadStart = System.nanoTime();
+            CityGraph.read(edgeFile.getPath());
+            long updateStart = System.nanoTime();
+            cityGraph.withUpdate(new GraphUpdate().removeRoad(path.get(0), path.get(1)));
+            long updateEnd = System.nanoTime();
+            System.out.printf("%-18s %-34s updated in %.0f ms, reloaded in %.0f ms%n", dataset, "CityGraph road closure",
+                    (updateEnd - updateStart) / 1e6, (updateStart - reloadStart) / 1e6);
+            return;
+        }
+    }
+
+    // Benchmarks each strategy on the queries. Exhaustive strategies use exhaustiveQueries
+    // instead, and are skipped if there are none.
+    private void run(String dataset, List<Strategy> strategies, String[][] queries, String[][] exhaustiveQueries) {
+        for (Strategy strategy : strategies) {
+            String[][] strategyQueries = strategy.exhaustive ? exhaustiveQueries : queries;
+            if (strategyQueries == null) {
+                System.out.printf("%-18s %-34s skipped (too slow on large graphs)%n", dataset, strategy.name);
+                continue;
+            }
+            try {
+                measure(dataset, strategy, strategyQueries);
+            } catch (StackOverflowError e) {
+                System.out.printf("%-18s %-34s failed (stack overflow)%n", dataset, strategy.name);
+            }
+        }
+    }
+
+    private void measure(String dataset, Strategy strategy, String[][] queries) {
+        // Warm up with whole passes over the queries until the warmup time is spent
+        long warmupEnd = System.nanoTime() + warmupNanos;
+        do {
+            for (String[] query : queries) {
+                blackhole = strategy.search.run(query[0], query[1]);
+            }
+        } while (System.nanoTime() < warmupEnd);
+
+        long[] samples = new long[queries.length * 16];
+        int count = 0;
+        long total = 0;
+        long expanded = 0;
+        long allocatedBefore = threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+        do {
+            for (String[] query : queries) {
+                long start = System.nanoTime();
+                SearchResult result = strategy.search.run(query[0], query[1]);
+                long elapsed = System.nanoTime() - start;
+                blackhole = result;
+                if (count == samples.length) {
+                    samples = Arrays.copyOf(samples, count * 2);
+                }
+                samples[count++] = elapsed;
+                total += elapsed;
+                expanded += result.nodesExpanded();
+            }
+        } while (total < budgetNanos);
+        long allocated = threads != null ? threads.getCurrentThreadAllocatedBytes() - allocatedBefore : -1;
+
+        Arrays.sort(samples, 0, count);
+        System.out.printf("%-18s %-34s %12.0f %10.1f %10.1f %10.1f %10.1f %10s %12d %8d%n",
+                dataset, strategy.name, count / (total / 1e9),
+                percentile(samples, count, 0.50) / 1e3, percentile(samples, count, 0.90) / 1e3,
+                percentile(samples, count, 0.99) / 1e3, samples[count - 1] / 1e3,
+                allocated < 0 ? "n/a" : String.valueOf(allocated / count), expanded / count, count);
+    }
+
+    // Submits CONCURRENT_REQUESTS A* queries to a RouteService at once, cycling through
+    // the queries, and reports the throughput and the latency from submission to result,
+    // which includes the time spent waiting for a search slot.
+    private void measureConcurrent(String dataset, String name, RouteGraph graph, String[][] queries) {
+        try (RouteService service = new RouteService(graph)) {
+            // Warm up the pooled contexts and the JIT
+            long warmupEnd = System.nanoTime() + warmupNanos;
+            do {
+                for (String[] query : queries) {
+                    blackhole = service.search(SearchAlgorithm.A_STAR, query[0], query[1]);
+                }
+            } while (System.nanoTime() < warmupEnd);
+
+            long[] samples = new long[CONCURRENT_REQUESTS];
+            List<CompletableFuture<Void>> requests = new ArrayList<>(CONCURRENT_REQUESTS);
+            long start = System.nanoTime();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                String[] query = queries[i % queries.length];
+                int sample = i;
+                long submitted = System.nanoTime();
+                requests.add(service.route(SearchAlgorithm.A_STAR, query[0], query[1]).thenAccept(result -> {
+                    samples[sample] = System.nanoTime() - submitted;
+                    blackhole = result;
+                }));
+            }
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).join();
+            long total = System.nanoTime() - start;
+
+            Arrays.sort(samples);
+            System.out.printf("%-18s %-34s %12.0f %10.1f %10.1f %10.1f %10.1f %10s %12s %8d%n",
+                    dataset, name + " (concurrent)", CONCURRENT_REQUESTS / (total / 1e9),
+                    percentile(samples, CONCURRENT_REQUESTS, 0.50) / 1e3, percentile(samples, CONCURRENT_REQUESTS, 0.90) / 1e3,
+                    percentile(samples, CONCURRENT_REQUESTS, 0.99) / 1e3, samples[CONCURRENT_REQUESTS - 1] / 1e3,
+                    "-", "-", CONCURRENT_REQUESTS);
+        }
+    }
+
+    // Times the distance matrix from the starts of the queries to their ends, one sample
+    // per matrix. Throughput counts each start-end pair as a query; the latencies and
+    // the expanded nodes are per matrix.
+    private void measureMatrix(String dataset, String name, RouteGraph graph, String[][] queries) {
+        List<String> sources = new ArrayList<>();
+        List<String> targets = new ArrayList<>();
+        for (String[] query : queries) {
+            sources.add(query[0]);
+            targets.add(query[1]);
+        }
+
+        long warmupEnd = System.nanoTime() + warmupNanos;
+        do {
+            graph.distanceMatrix(sources, targets, true);
+        } while (System.nanoTime() < warmupEnd);
+
+        long[] samples = new long[16];
+        int count = 0;
+        long total = 0;
+        long expanded = 0;
+        do {
+            long start = System.nanoTime();
+            DistanceMatrix matrix = graph.distanceMatrix(sources, targets, true);
+            long elapsed = System.nanoTime() - start;
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = elapsed;
+            total += elapsed;
+            expanded += matrix.nodesExpanded();
+        } while (total < budgetNanos);
+
+        Arrays.sort(samples, 0, count);
+        String label = name + " matrix " + sources.size() + "x" + targets.size();
+        System.out.printf("%-18s %-34s %12.0f %10.1f %10.1f %10.1f %10.1f %10s %12d %8d%n",
+                dataset, label, (long) count * sources.size() * targets.size() / (total / 1e9),
+                percentile(samples, count, 0.50) / 1e3, percentile(samples, count, 0.90) / 1e3,
+                percentile(samples, count, 0.99) / 1e3, samples[count - 1] / 1e3,
+                "-", expanded / count, count);
+    }
+
+    private void printHeader() {
+        System.out.printf("%-18s %-34s %12s %10s %10s %10s %10s %10s %12s %8s%n",
+                "dataset", "strategy", "queries/s", "p50 us", "p90 us", "p99 us", "max us", "B/query", "expanded", "samples");
+    }
+
+    private static long percentile(long[] sorted, int count, double fraction) {
+        int index = (int) Math.ceil(fraction * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+}
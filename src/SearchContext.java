@@ -0,0 +1,198 @@
+import java.util.Arrays;
+
+// Reusable scratch state for a single search: a visited set, parent links, path
+// distances, int work arrays for queues, stacks, paths and depth-first edge cursors,
+// and an indexed priority queue for best-first and A*. One context is kept per thread
+// and handed out by acquire(), so a query allocates nothing; RouteService instead
+// lends a pooled context to each virtual thread for the duration of its query.
+//
+// The visited set is an int array of generation stamps: a node counts as visited
+// when its stamp equals the current generation, so starting a new search is O(1)
+// (bump the generation) instead of clearing the arrays. The parent and distance
+// entries of a node are only meaningful while it is visited.
+//
+// While SearchMetrics.ENABLED, the context also counts the work of its search: edges
+// relaxed, and pushes, pops and the peak size of the frontiers the searches keep in its
+// int arrays. The three queues count their own, and the totals below add them up with
+// those of the reverse context. The counters are reset by acquire().
+public class SearchContext {
+    private static final ThreadLocal<SearchContext> CONTEXTS = ThreadLocal.withInitial(SearchContext::new);
+    // Context lent to the thread for its current task, which takes precedence over CONTEXTS.
+    // Short-lived threads such as virtual threads would otherwise allocate one each.
+    private static final ThreadLocal<SearchContext> LENT = new ThreadLocal<>();
+
+    private int[] visitedStamp = new int[0];
+    private int generation;
+    int[] parent = new int[0];
+    double[] distance = new double[0];
+    int[] nodes = new int[0];
+    int[] path = new int[0];
+    int[] cursor = new int[0]; // Next edge to try at each depth of a depth-first search
+    int[] depth = new int[0]; // Shallowest depth at which iterative deepening reached each visited node
+    int[] depthIteration = new int[0]; // Iteration in which that node was last reached at that depth
+    long[] iterationExpanded = new long[16]; // Nodes expanded by each iterative deepening iteration
+    int iterations;
+    final IndexedMinHeap heap = new IndexedMinHeap();
+    final BucketQueue buckets = new BucketQueue(); // Integer queues, cleared by the Dijkstra searches that use them
+    final RadixHeap radixHeap = new RadixHeap();
+    long expanded; // Nodes expanded since acquire(), across ID-DFS iterations and both bidirectional halves
+    private SearchContext reverse; // Backward half of a bidirectional search
+    private long relaxed;
+    private long pushes;
+    private long pops;
+    private int peakFrontier;
+
+    // Returns this thread's context, reset for a search over nodeCount nodes.
+    public static SearchContext acquire(int nodeCount) {
+        SearchContext context = LENT.get();
+        if (context == null) {
+            context = CONTEXTS.get();
+        }
+        context.reset(nodeCount);
+        context.expanded = 0;
+        context.iterations = 0;
+        if (SearchMetrics.ENABLED) {
+            context.resetCounters();
+        }
+        return context;
+    }
+
+    private void resetCounters() {
+        relaxed = 0;
+        pushes = 0;
+        pops = 0;
+        peakFrontier = 0;
+        heap.resetCounters();
+        buckets.resetCounters();
+        radixHeap.resetCounters();
+        if (reverse != null) {
+            reverse.resetCounters();
+        }
+    }
+
+    // Makes acquire() on this thread return context until lend(null) is called.
+    public static void lend(SearchContext context) {
+        if (context == null) {
+            LENT.remove();
+        } else {
+            LENT.set(context);
+        }
+    }
+
+    // Forgets every visited node.
+    public void reset(int nodeCount) {
+        if (visitedStamp.length < nodeCount) {
+            visitedStamp = new int[nodeCount];
+            parent = new int[nodeCount];
+            distance = new double[nodeCount];
+            nodes = new int[nodeCount];
+            path = new int[nodeCount];
+            cursor = new int[nodeCount];
+            depth = new int[nodeCount];
+            depthIteration = new int[nodeCount];
+            generation = 0;
+        }
+        heap.clear(nodeCount);
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            // Stamps from 2^31 searches ago could collide, so clear them once
+            Arrays.fill(visitedStamp, 0);
+            generation = 1;
+        }
+    }
+
+    // Returns a second context, reset for nodeCount nodes, for the search that runs
+    // backward from the destination in a bidirectional search.
+    public SearchContext reverse(int nodeCount) {
+        if (reverse == null) {
+            reverse = new SearchContext();
+        }
+        reverse.reset(nodeCount);
+        return reverse;
+    }
+
+    public boolean isVisited(int node) {
+        return visitedStamp[node] == generation;
+    }
+
+    // Marks the node visited and records how it was reached.
+    public void visit(int node, int parentNode, double pathDistance) {
+        visitedStamp[node] = generation;
+        parent[node] = parentNode;
+        distance[node] = pathDistance;
+    }
+
+    public void markVisited(int node) {
+        visitedStamp[node] = generation;
+    }
+
+    // Removes the node from the visited set when a depth-first search backtracks.
+    public void unmarkVisited(int node) {
+        visitedStamp[node] = 0;
+    }
+
+    // Counts node as expanded and, while SearchMetrics.ENABLED, the edges
+    // offsets[node] .. offsets[node + 1] - 1 that the search scans from it as relaxed.
+    void expand(int[] offsets, int node) {
+        expanded++;
+        if (SearchMetrics.ENABLED) {
+            relaxed += offsets[node + 1] - offsets[node];
+        }
+    }
+
+    // Counts one edge relaxed, for searches that scan the edges of a node one at a time.
+    void countRelaxed() {
+        if (SearchMetrics.ENABLED) {
+            relaxed++;
+        }
+    }
+
+    // Counts a node added to a queue or stack kept in the int arrays, which then holds
+    // frontierSize nodes.
+    void countPush(int frontierSize) {
+        if (SearchMetrics.ENABLED) {
+            pushes++;
+            if (frontierSize > peakFrontier) {
+                peakFrontier = frontierSize;
+            }
+        }
+    }
+
+    // Counts a node taken from a queue or stack kept in the int arrays.
+    void countPop() {
+        if (SearchMetrics.ENABLED) {
+            pops++;
+        }
+    }
+
+    long edgesRelaxed() {
+        return relaxed + (reverse == null ? 0 : reverse.edgesRelaxed());
+    }
+
+    long queuePushes() {
+        return pushes + heap.pushes + buckets.pushes + radixHeap.pushes + (reverse == null ? 0 : reverse.queuePushes());
+    }
+
+    long queuePops() {
+        return pops + heap.pops + buckets.pops + radixHeap.pops + (reverse == null ? 0 : reverse.queuePops());
+    }
+
+    int peakFrontier() {
+        int peak = Math.max(peakFrontier, Math.max(heap.peakSize, Math.max(buckets.peakSize, radixHeap.peakSize)));
+        return reverse == null ? peak : Math.max(peak, reverse.peakFrontier());
+    }
+
+    // Writes the path ending at endNode into the path array by following the parent
+    // links back to a node whose parent is -1, and returns its length.
+    public int buildPath(int endNode) {
+        int pathLength = 0;
+        for (int node = endNode; node != -1; node = parent[node]) {
+            pathLength++;
+        }
+        int i = pathLength;
+        for (int node = endNode; node != -1; node = parent[node]) {
+            path[--i] = node;
+        }
+        return pathLength;
+    }
+}
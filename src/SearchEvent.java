@@ -0,0 +1,54 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Flight Recorder event for one search, committed by SearchMetrics while statistics are
+// enabled. A recording started with -XX:StartFlightRecording or jcmd JFR.start shows
+// the slow queries next to the GC pauses and lock contention of the same moment; when
+// no recording is running, shouldCommit() is false and the event costs nothing more.
+@Name("routing.Search")
+@Label("Route Search")
+@Category("Routing")
+@Description("One route search with the work it did")
+@StackTrace(false)
+public class SearchEvent extends Event {
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Start City")
+    @Description("City the query started from, as given, even if no path was found")
+    String startCity;
+
+    @Label("End City")
+    @Description("City the query asked for, as given, even if no path was found")
+    String endCity;
+
+    @Label("Found")
+    boolean found;
+
+    @Label("Cost")
+    double cost;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    @Label("Nodes Expanded")
+    long nodesExpanded;
+
+    @Label("Edges Relaxed")
+    long edgesRelaxed;
+
+    @Label("Queue Pushes")
+    long queuePushes;
+
+    @Label("Queue Pops")
+    long queuePops;
+
+    @Label("Peak Frontier")
+    int peakFrontier;
+}
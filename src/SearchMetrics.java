@@ -0,0 +1,67 @@
+// Switch and sink for search statistics. With -Dsearch.metrics=true every search of
+// CityGraph and CoordinateCity counts its relaxed edges, queue pushes and pops and its
+// largest frontier into its SearchContext, and each result is recorded here into a
+// latency histogram for its algorithm and emitted as a SearchEvent for Flight Recorder.
+//
+// ENABLED is a static final constant, so when it is false the JIT folds every
+// "if (SearchMetrics.ENABLED)" in the search loops away and the searches run as
+// before. The flag is read once at class loading and cannot be changed afterwards.
+public class SearchMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("search.metrics");
+
+    private static final LatencyHistogram[] LATENCIES = new LatencyHistogram[SearchAlgorithm.values().length];
+
+    static {
+        for (int i = 0; i < LATENCIES.length; i++) {
+            LATENCIES[i] = new LatencyHistogram();
+        }
+    }
+
+    private SearchMetrics() {
+    }
+
+    // Records a result of algorithm for the query from startCity to endCity; the searches
+    // call this only while ENABLED.
+    static void record(SearchAlgorithm algorithm, String startCity, String endCity, SearchResult result) {
+        LATENCIES[algorithm.ordinal()].record(result.elapsedNanos());
+
+        SearchEvent event = new SearchEvent();
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm.name();
+            event.startCity = startCity;
+            event.endCity = endCity;
+            event.found = result.found();
+            event.cost = result.cost();
+            event.latency = result.elapsedNanos();
+            event.nodesExpanded = result.nodesExpanded();
+            event.edgesRelaxed = result.edgesRelaxed();
+            event.queuePushes = result.queuePushes();
+            event.queuePops = result.queuePops();
+            event.peakFrontier = result.peakFrontier();
+            event.commit();
+        }
+    }
+
+    // Latencies of the searches of algorithm recorded so far, by all threads.
+    public static LatencyHistogram latencies(SearchAlgorithm algorithm) {
+        return LATENCIES[algorithm.ordinal()];
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : LATENCIES) {
+            histogram.reset();
+        }
+    }
+
+    // One line per algorithm that has run, with its latency percentiles.
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            LatencyHistogram histogram = LATENCIES[algorithm.ordinal()];
+            if (histogram.count() > 0) {
+                report.append(String.format("%-28s %s%n", algorithm, histogram));
+            }
+        }
+        return report.toString();
+    }
+}
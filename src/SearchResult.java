@@ -0,0 +1,154 @@
+import java.util.Arrays;
+import java.util.List;
+
+// Outcome of one search: the path as node ids, its cost, how many nodes the search
+// expanded and how long it ran. The searches return a result instead of printing, so
+// the caller decides how to present it and the elapsed time covers only the search.
+// While SearchMetrics.ENABLED, it also holds the edges relaxed, the queue pushes and
+// pops and the peak frontier of the search, and the factories record it in SearchMetrics.
+public class SearchResult {
+    private static final int[] NO_PATH = new int[0];
+
+    private final CompactGraph graph;
+    private final int[] path;
+    private final double cost;
+    private final long nodesExpanded;
+    private final long elapsedNanos;
+    private final long edgesRelaxed;
+    private final long queuePushes;
+    private final long queuePops;
+    private final int peakFrontier;
+
+    SearchResult(CompactGraph graph, int[] path, double cost, long nodesExpanded, long elapsedNanos) {
+        this(graph, path, cost, nodesExpanded, elapsedNanos, 0, 0, 0, 0);
+    }
+
+    // Result of the search run in context, with the work counted there
+    SearchResult(CompactGraph graph, int[] path, double cost, SearchContext context, long elapsedNanos) {
+        this(graph, path, cost, context.expanded, elapsedNanos,
+                SearchMetrics.ENABLED ? context.edgesRelaxed() : 0,
+                SearchMetrics.ENABLED ? context.queuePushes() : 0,
+                SearchMetrics.ENABLED ? context.queuePops() : 0,
+                SearchMetrics.ENABLED ? context.peakFrontier() : 0);
+    }
+
+    SearchResult(CompactGraph graph, int[] path, double cost, long nodesExpanded, long elapsedNanos,
+                 long edgesRelaxed, long queuePushes, long queuePops, int peakFrontier) {
+        this.graph = graph;
+        this.path = path;
+        this.cost = cost;
+        this.nodesExpanded = nodesExpanded;
+        this.elapsedNanos = elapsedNanos;
+        this.edgesRelaxed = edgesRelaxed;
+        this.queuePushes = queuePushes;
+        this.queuePops = queuePops;
+        this.peakFrontier = peakFrontier;
+    }
+
+    // Result for the path held in context.path[0 .. pathLength - 1], found by algorithm in
+    // a search from startCity to endCity that began at startNanos.
+    static SearchResult found(SearchAlgorithm algorithm, String startCity, String endCity, CompactGraph graph,
+                              SearchContext context, int pathLength, double cost, long startNanos) {
+        int[] copy = Arrays.copyOf(context.path, pathLength);
+        return record(algorithm, startCity, endCity, new SearchResult(graph, copy, cost, context, System.nanoTime() - startNanos));
+    }
+
+    // Result of a search by algorithm from startCity to endCity, run in context, that
+    // began at startNanos and found no path.
+    static SearchResult notFound(SearchAlgorithm algorithm, String startCity, String endCity, CompactGraph graph,
+                                 SearchContext context, long startNanos) {
+        return record(algorithm, startCity, endCity,
+                new SearchResult(graph, NO_PATH, Double.POSITIVE_INFINITY, context, System.nanoTime() - startNanos));
+    }
+
+    // Result of a search by algorithm from startCity to endCity that began at startNanos
+    // and ended before it ran, because a city was unknown or the two were not connected.
+    static SearchResult notFound(SearchAlgorithm algorithm, String startCity, String endCity, CompactGraph graph, long startNanos) {
+        return record(algorithm, startCity, endCity,
+                new SearchResult(graph, NO_PATH, Double.POSITIVE_INFINITY, 0, System.nanoTime() - startNanos));
+    }
+
+    // Records result, of the query from startCity to endCity, in SearchMetrics if enabled,
+    // and returns it.
+    static <T extends SearchResult> T record(SearchAlgorithm algorithm, String startCity, String endCity, T result) {
+        if (SearchMetrics.ENABLED) {
+            SearchMetrics.record(algorithm, startCity, endCity, result);
+        }
+        return result;
+    }
+
+    // The same route answered again without a search, as by a cache lookup that took elapsedNanos.
+    SearchResult replay(long elapsedNanos) {
+        return copy(path, 0, elapsedNanos, 0, 0, 0, 0);
+    }
+
+    // The route walked from its end city back to its start city, for undirected graphs.
+    SearchResult reversed() {
+        int[] reversedPath = new int[path.length];
+        for (int i = 0; i < path.length; i++) {
+            reversedPath[i] = path[path.length - 1 - i];
+        }
+        return copy(reversedPath, nodesExpanded, elapsedNanos, edgesRelaxed, queuePushes, queuePops, peakFrontier);
+    }
+
+    // A result of the same graph and cost with the given path and counters, of the same
+    // class as this one, so replay and reversed keep what a subclass adds.
+    SearchResult copy(int[] path, long nodesExpanded, long elapsedNanos, long edgesRelaxed, long queuePushes,
+                      long queuePops, int peakFrontier) {
+        return new SearchResult(graph, path, cost, nodesExpanded, elapsedNanos, edgesRelaxed, queuePushes, queuePops, peakFrontier);
+    }
+
+    public boolean found() {
+        return path.length > 0;
+    }
+
+    // Node ids from the start city to the end city, or an empty array if there is no path.
+    public int[] path() {
+        return path.clone();
+    }
+
+    // Graph the path's node ids refer to
+    CompactGraph graph() {
+        return graph;
+    }
+
+    public List<String> pathNames() {
+        return graph.names(path, path.length);
+    }
+
+    // Sum of the edge weights along the path, or infinity if there is no path.
+    public double cost() {
+        return cost;
+    }
+
+    // Number of nodes whose neighbors the search scanned.
+    public long nodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Edges the search examined from the nodes it expanded; 0 unless SearchMetrics.ENABLED.
+    public long edgesRelaxed() {
+        return edgesRelaxed;
+    }
+
+    // Nodes added to the search's queues or stacks, on both sides of a bidirectional
+    // search; 0 unless SearchMetrics.ENABLED.
+    public long queuePushes() {
+        return queuePushes;
+    }
+
+    // Nodes taken from the search's queues or stacks; 0 unless SearchMetrics.ENABLED.
+    public long queuePops() {
+        return queuePops;
+    }
+
+    // Most nodes held at once by one of the search's queues or stacks; 0 unless
+    // SearchMetrics.ENABLED.
+    public int peakFrontier() {
+        return peakFrontier;
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.Arrays;
+
+// Uniform latitude/longitude grid over a set of points, used to find every point
+// within a distance threshold without comparing all pairs. Cells are sized so that
+// any two points closer than the threshold lie in the same or adjacent cells, so a
+// lookup only measures the points in the 3x3 block around the query point.
+public class SpatialGrid {
+    private static final int MAX_CELLS_PER_AXIS = 1 << 15;
+
+    // Distance between two points by index, in the same unit as the threshold
+    public interface Distance {
+        double between(int point1, int point2);
+    }
+
+    private final int rows;
+    private final int columns;
+    private final double cellHeight;
+    private final double cellWidth;
+    private final long[] cellKeys;  // Sorted keys of the non-empty cells
+    private final int[] cellStart;  // Points of cellKeys[c] are points[cellStart[c] .. cellStart[c + 1] - 1]
+    private final int[] points;
+    private final int[] pointCell;  // Row-major cell key of each point
+
+    // Latitudes and longitudes are in radians; threshold is a great-circle distance
+    // on a sphere of the given radius.
+    public SpatialGrid(double[] latitudes, double[] longitudes, double threshold, double radius) {
+        int pointCount = latitudes.length;
+
+        // Two points within the threshold differ in latitude by at most threshold / radius
+        double maxLatitudeDelta = Math.max(threshold / radius, Math.PI / MAX_CELLS_PER_AXIS);
+        rows = Math.max(1, (int) Math.min(MAX_CELLS_PER_AXIS, Math.floor(Math.PI / maxLatitudeDelta)));
+        cellHeight = Math.PI / rows;
+
+        // The longitude difference is bounded by 2 * asin(sin(threshold / 2r) / cos(lat))
+        // at the highest latitude present; near the poles a cell spans every longitude.
+        // A latitude beyond the poles or not a number counts as a pole, so a bad point
+        // only widens the cells instead of making the grid miss neighbors.
+        double maxAbsLatitude = 0;
+        for (double latitude : latitudes) {
+            double absLatitude = Math.abs(latitude) <= Math.PI / 2 ? Math.abs(latitude) : Math.PI / 2;
+            maxAbsLatitude = Math.max(maxAbsLatitude, absLatitude);
+        }
+        double halfAngle = Math.min(threshold / (2 * radius), Math.PI / 2);
+        double bound = Math.sin(halfAngle) / Math.cos(maxAbsLatitude);
+        double maxLongitudeDelta = bound >= 1 ? 2 * Math.PI : Math.max(2 * Math.asin(bound), 2 * Math.PI / MAX_CELLS_PER_AXIS);
+        columns = Math.max(1, (int) Math.min(MAX_CELLS_PER_AXIS, Math.floor(2 * Math.PI / maxLongitudeDelta)));
+        cellWidth = 2 * Math.PI / columns;
+
+        // Sort the points by cell, packing the cell key above the point index
+        pointCell = new int[pointCount];
+        long[] sorted = new long[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            pointCell[i] = row(latitudes[i]) * columns + column(longitudes[i]);
+            sorted[i] = ((long) pointCell[i] << 32) | i;
+        }
+        Arrays.sort(sorted);
+
+        points = new int[pointCount];
+        long[] keys = new long[pointCount];
+        int[] starts = new int[pointCount + 1];
+        int cellCount = 0;
+        for (int i = 0; i < pointCount; i++) {
+            long key = sorted[i] >>> 32;
+            points[i] = (int) sorted[i];
+            if (cellCount == 0 || keys[cellCount - 1] != key) {
+                keys[cellCount] = key;
+                starts[cellCount] = i;
+                cellCount++;
+            }
+        }
+        starts[cellCount] = pointCount;
+        cellKeys = Arrays.copyOf(keys, cellCount);
+        cellStart = Arrays.copyOf(starts, cellCount + 1);
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((latitude + Math.PI / 2) / cellHeight)));
+    }
+
+    private int column(double longitude) {
+        int column = (int) Math.floor((longitude + Math.PI) / cellWidth) % columns;
+        return column < 0 ? column + columns : column;
+    }
+
+    // Writes the indices of all other points within threshold of point into result,
+    // in ascending order, and returns how many there are. result must have room for
+    // every point.
+    public int neighborsWithin(int point, double threshold, Distance distance, int[] result) {
+        int count = 0;
+        int row = pointCell[point] / columns;
+        int column = pointCell[point] % columns;
+        int columnSpan = Math.min(columns, 3);
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int dc = 0; dc < columnSpan; dc++) {
+                // Visit column, column + 1 and column - 1, wrapping around the antimeridian
+                int c = (column + (dc == 2 ? columns - 1 : dc)) % columns;
+                int cell = Arrays.binarySearch(cellKeys, (long) r * columns + c);
+                if (cell < 0) {
+                    continue;
+                }
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int other = points[i];
+                    if (other != point && distance.between(point, other) <= threshold) {
+                        result[count++] = other;
+                    }
+                }
+            }
+        }
+        Arrays.sort(result, 0, count);
+        return count;
+    }
+}